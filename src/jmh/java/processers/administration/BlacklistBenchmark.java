@@ -0,0 +1,50 @@
+package processers.administration;
+
+import net.dv8tion.jda.api.entities.Message;
+import org.openjdk.jmh.annotations.*;
+import processers.persistence.BenchmarkDatabase;
+import util.Stubs;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Link detection on messages from blacklisted users. Messages without links are the common case and return
+ * right after the check; messages with links are also queued for the archive pipeline, which flushes them to stubs
+ * in the background.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BlacklistBenchmark {
+
+    @Param({
+            "lmao did you see the launch yesterday, the whole thing went sideways after staging",
+            "https://www.example.com/some/path?query=value"
+    })
+    public String content;
+
+    private BenchmarkDatabase database;
+    private BlacklistProcessor processor;
+    private Message message;
+
+    @Setup
+    public void setup() throws IOException {
+        database = new BenchmarkDatabase();
+        processor = new BlacklistProcessor(database.get());
+        message = Stubs.message(content);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        database.close();
+    }
+
+    @Benchmark
+    public void processMessage() {
+        processor.processMessage(message);
+    }
+}
@@ -0,0 +1,92 @@
+package processers.commands;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Cost of splitting a command into arguments, against the parser it replaced. Run with {@code -Pjmh.prof=gc}
+ * to see the bytes allocated per parse ({@code gc.alloc.rate.norm}).</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArgumentTokenizerBenchmark {
+
+    @Param({
+            "++facts",
+            "++addanswer \"hello there\" \"general kenobi\"",
+            "++remindme \"take the pizza out of the oven before it burns again\" 1h30m",
+            "++choose a b c d e f g h i j k l m n o p"
+    })
+    public String content;
+
+    /**
+     * <p>Splitting alone, as done for every command before the name is known.</p>
+     */
+    @Benchmark
+    public int tokenize() {
+        return new ArgumentTokenizer(content, "++").size();
+    }
+
+    /**
+     * <p>Splitting, dispatching on the name and reading every argument, as a command does.</p>
+     */
+    @Benchmark
+    public void tokenizeAndRead(Blackhole bh) {
+        ArgumentTokenizer args = new ArgumentTokenizer(content, "++");
+        bh.consume(args.matches(0, "addanswer"));
+        for (int i = 1; i < args.size(); i++) bh.consume(args.get(i));
+    }
+
+    @Benchmark
+    public String[] legacyParse() {
+        return legacyParse(content, "++");
+    }
+
+    // The parser used before ArgumentTokenizer, kept as a baseline
+    private static String[] legacyParse(String message, String keyChars) {
+        List<String> args = new ArrayList<>();
+        boolean insideQuotations = false;
+        boolean quotationArgumentEnd = false;
+        boolean argBegin = true;
+        StringBuilder currentArg = new StringBuilder();
+
+        for (int i = 0; i != message.length(); i++) {
+            char c = message.charAt(i);
+            if (quotationArgumentEnd) {
+                quotationArgumentEnd = false;
+                argBegin = true;
+                continue;
+            }
+            if (argBegin) {
+                argBegin = false;
+                currentArg = new StringBuilder();
+                insideQuotations = c == '"';
+                if (!insideQuotations) currentArg.append(c);
+                continue;
+            }
+            if (insideQuotations && c == '"') {
+                args.add(currentArg.toString());
+                quotationArgumentEnd = true;
+                continue;
+            }
+            if (!insideQuotations && c == ' ') {
+                args.add(currentArg.toString());
+                argBegin = true;
+                continue;
+            }
+            currentArg.append(c);
+        }
+        if (!insideQuotations) args.add(currentArg.toString());
+        if (args.isEmpty()) args.add("");
+        args.set(0, args.get(0).replace(keyChars, ""));
+        return args.toArray(new String[0]);
+    }
+}
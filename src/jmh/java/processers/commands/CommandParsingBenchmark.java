@@ -0,0 +1,77 @@
+package processers.commands;
+
+import net.dv8tion.jda.api.entities.Message;
+import org.openjdk.jmh.annotations.*;
+import util.LinkClassifier;
+import util.Pair;
+import util.Stubs;
+import util.UrlScanner;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Argument parsing and link detection, run on every command.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandParsingBenchmark {
+
+    @Benchmark
+    public CommandContext parseArguments(Commands state) {
+        return new CommandContext(state.message, "++", "(BENCH) ");
+    }
+
+    @Benchmark
+    public Pair<String, Boolean> getLink(Links state) {
+        return state.processor.getLink(state.link);
+    }
+
+    @Benchmark
+    public List<LinkClassifier.Link> findLinks(Links state) {
+        return LinkClassifier.findLinks(state.link);
+    }
+
+    @Benchmark
+    public boolean containsUrl(Links state) {
+        return UrlScanner.containsUrl(state.link);
+    }
+
+    // Kept apart from the links, so every benchmark only runs once per value of its own parameter
+    @State(Scope.Benchmark)
+    public static class Commands {
+        @Param({
+                "++facts",
+                "++addanswer \"hello there\" \"general kenobi\"",
+                "++quote https://cdn.discordapp.com/attachments/700000000000000000/800000000000000000/image.png some caption text"
+        })
+        public String content;
+
+        Message message;
+
+        @Setup
+        public void setup() {
+            message = Stubs.message(content);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Links {
+        @Param({
+                "https://cdn.discordapp.com/attachments/700000000000000000/800000000000000000/image.png",
+                "https://www.youtube.com/watch?v=dQw4w9WgXcQ",
+                "just a regular sentence without any link in it"
+        })
+        public String link;
+
+        CommandProcessor processor;
+
+        @Setup
+        public void setup() {
+            processor = new CommandProcessor(null, "++", null, "(BENCH) ") {};
+        }
+    }
+}
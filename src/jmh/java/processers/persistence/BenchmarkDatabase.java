@@ -0,0 +1,41 @@
+package processers.persistence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * <p>Throwaway database for benchmarks, kept in its own temporary directory and removed from disk once closed.</p>
+ */
+public class BenchmarkDatabase {
+
+    private final Path directory;
+    private final DataManagementProcessor dmp;
+
+    public BenchmarkDatabase() throws IOException {
+        this.directory = Files.createTempDirectory("bruhbot-jmh-");
+        // Lazy fsync and no background snapshots, so disk activity doesn't leak into the numbers
+        this.dmp = new DataManagementProcessor("jmh", directory.toFile(), 60_000, 0);
+        dmp.initialize();
+    }
+
+    public DataManagementProcessor get() {
+        return dmp;
+    }
+
+    public void close() throws IOException {
+        dmp.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            // Deepest first, so directories are empty by the time they're deleted
+            files.sorted(Comparator.reverseOrder()).forEach(file -> {
+                try {
+                    Files.delete(file);
+                } catch (IOException e) {
+                    System.err.println("WARNING: Unable to delete " + file);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package processers.persistence;
+
+import org.openjdk.jmh.annotations.*;
+import util.Quote;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Quote lookups behind {@code facts} and {@code rawquote}.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QuoteLookupBenchmark {
+
+    private static final long FIRST_ID = 800000000000000000L;
+
+    @Param({"100", "10000"})
+    public int quotes;
+
+    private BenchmarkDatabase database;
+    private DataManagementProcessor dmp;
+    private long seed;
+
+    @Setup
+    public void setup() throws IOException {
+        database = new BenchmarkDatabase();
+        dmp = database.get();
+        OffsetDateTime time = OffsetDateTime.now();
+        for (int i = 0; i != quotes; i++)
+            dmp.addQuote(new Quote("700000000000000000", "https://cdn.discordapp.com/attachments/" + i + "/image.png", "bench", time, Long.toString(FIRST_ID + i)));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        database.close();
+    }
+
+    @Benchmark
+    public Quote getRandomQuote() {
+        return dmp.getRandomQuote(seed++);
+    }
+
+    @Benchmark
+    public Quote getQuote() {
+        return dmp.getQuote(Long.toString(FIRST_ID + (seed++ % quotes)));
+    }
+}
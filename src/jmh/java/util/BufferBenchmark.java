@@ -0,0 +1,54 @@
+package util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Hand-off throughput of the event {@link Buffer}, alone and with producers and a consumer racing for it.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class BufferBenchmark {
+
+    private final Object payload = new Object();
+    private Buffer<Object> buffer;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        // Dropping the oldest entry keeps producers from ever blocking, so iterations always end cleanly
+        buffer = new Buffer<>(1024, Buffer.OverflowPolicy.DROP_OLDEST, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @Benchmark
+    @Group("single")
+    public Object offerThenTake() {
+        buffer.offer(1, payload);
+        return buffer.getData();
+    }
+
+    @Benchmark
+    @Group("handoff")
+    @GroupThreads(3)
+    public boolean produce() {
+        return buffer.offer(1, payload);
+    }
+
+    @Benchmark
+    @Group("handoff")
+    public int consume(ConsumerState state) {
+        state.batch.clear();
+        return buffer.drainTo(state.batch, 64);
+    }
+
+    @State(Scope.Thread)
+    public static class ConsumerState {
+        final List<Pair<Integer, Object>> batch = new ArrayList<>(64);
+    }
+}
@@ -0,0 +1,83 @@
+package util;
+
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.TextChannel;
+import net.dv8tion.jda.api.entities.User;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+/**
+ * <p>Offline stand-ins for JDA entities, so benchmarks don't need a connection to Discord.</p>
+ * A stub answers the methods it was given explicitly, and every other method with a harmless default: another stub
+ * for interfaces (so chains like {@code message.delete().reason("").queue()} just work), an empty string, an empty
+ * collection, zero or {@code false}.
+ */
+public final class Stubs {
+
+    private Stubs() {}
+
+    public static <T> T stub(Class<T> type) {
+        return stub(type, Collections.emptyMap());
+    }
+
+    /**
+     * @param answers Values returned by the methods with these names, regardless of their arguments.
+     */
+    public static <T> T stub(Class<T> type, Map<String, Object> answers) {
+        Map<String, Object> fixed = new HashMap<>(answers);
+        Map<Method, Object> children = new HashMap<>();
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            switch (method.getName()) {
+                case "equals": return self == args[0];
+                case "hashCode": return System.identityHashCode(self);
+                case "toString": return type.getSimpleName() + " stub";
+            }
+            if (fixed.containsKey(method.getName())) return fixed.get(method.getName());
+            synchronized (children) {
+                return children.computeIfAbsent(method, m -> defaultValue(m.getReturnType()));
+            }
+        });
+        return type.cast(proxy);
+    }
+
+    /**
+     * @return A message with the specified content, sent by a user and in a channel with fixed IDs
+     */
+    public static Message message(String content) {
+        Map<String, Object> user = new HashMap<>();
+        user.put("getId", "265904613687820288");
+        user.put("getIdLong", 265904613687820288L);
+        user.put("getName", "bench");
+        Map<String, Object> channel = new HashMap<>();
+        channel.put("getId", "700000000000000000");
+        channel.put("getIdLong", 700000000000000000L);
+        channel.put("getName", "bench");
+        Map<String, Object> message = new HashMap<>();
+        message.put("getContentRaw", content);
+        message.put("getContentDisplay", content);
+        message.put("getAuthor", stub(User.class, user));
+        message.put("getChannel", stub(TextChannel.class, channel));
+        message.put("getTextChannel", message.get("getChannel"));
+        return stub(Message.class, message);
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == void.class) return null;
+        if (type == boolean.class) return false;
+        if (type == char.class) return '\0';
+        if (type == long.class) return 0L;
+        if (type == int.class) return 0;
+        if (type == short.class) return (short) 0;
+        if (type == byte.class) return (byte) 0;
+        if (type == double.class) return 0d;
+        if (type == float.class) return 0f;
+        if (type == String.class) return "";
+        if (type == List.class || type == Collection.class) return Collections.emptyList();
+        if (type == Set.class) return Collections.emptySet();
+        if (type == Map.class) return Collections.emptyMap();
+        if (type.isInterface()) return stub(type);
+        return null;
+    }
+}
@@ -0,0 +1,78 @@
+package util;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Answer/reaction trigger matching, run on every message: {@link TriggerIndex} against matching every trigger
+ * regex one by one, which is what the listener used to do.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TriggerMatchingBenchmark {
+
+    private static final String[] WORDS = {
+            "bruh", "moment", "kerbal", "minmus", "rocket", "explode", "orbit", "sus", "based", "cringe",
+            "mun", "duna", "eve", "jool", "kraken", "struts", "boosters", "lithobraking", "delta", "apoapsis"
+    };
+
+    @Param({"10", "100", "1000"})
+    public int triggers;
+
+    @Param({"false", "true"})
+    public boolean matching;
+
+    private List<String> patterns;
+    private TriggerIndex index;
+    private String content;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        patterns = new ArrayList<>(triggers);
+        for (int i = 0; i != triggers; i++) {
+            String word = WORDS[i % WORDS.length] + i;
+            switch (i % 4) {
+                case 0: patterns.add(".*" + word + ".*"); break;
+                case 1: patterns.add(word); break;
+                case 2: patterns.add(word + ".*"); break;
+                default: patterns.add(".*(" + word + "|" + WORDS[random.nextInt(WORDS.length)] + "x)[!?]*"); break;
+            }
+        }
+        index = new TriggerIndex(patterns);
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i != 30; i++) sb.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        if (matching) sb.append(WORDS[(triggers / 2) % WORDS.length]).append(triggers / 2 - (triggers / 2) % 4);
+        content = sb.toString().trim();
+    }
+
+    @Benchmark
+    public void triggerIndex(Blackhole bh) {
+        bh.consume(index.firstMatch(content));
+        bh.consume(index.allMatches(content));
+    }
+
+    @Benchmark
+    public void legacyRegexLoop(Blackhole bh) {
+        String first = null;
+        List<String> all = new ArrayList<>();
+        for (String pattern : patterns) {
+            if (content.matches(pattern)) {
+                if (first == null) first = pattern;
+                all.add(pattern);
+            }
+        }
+        bh.consume(first);
+        bh.consume(all);
+    }
+}
@@ -1,9 +1,12 @@
 import events.Event;
 import events.handler.EventHandler;
+import events.timer.ReminderScheduler;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.JDABuilder;
 import net.dv8tion.jda.api.entities.Activity;
 import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.utils.ChunkingFilter;
+import net.dv8tion.jda.api.utils.MemberCachePolicy;
 import processers.GuildListener;
 import processers.persistence.DataManagementProcessor;
 import util.Buffer;
@@ -11,23 +14,27 @@ import util.Pair;
 
 import javax.security.auth.login.LoginException;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.EnumSet;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 public class MainC {
 
-    public static final Buffer<Event> callBuffer = new Buffer<>();
-    private static final Buffer<Event> eventExecutionBuffer = new Buffer<>();
+    private static final int CALL_BUFFER_CAPACITY = 1024;
+    private static final long CALL_BUFFER_OFFER_TIMEOUT = 250;
+    private static final int EVENT_BUFFER_CAPACITY = 1024;
+    private static final int LISTENING_BATCH_SIZE = 64;
+
+    // The JDA event thread produces into callBuffer, so it must never wait on it for long
+    public static final Buffer<Event> callBuffer = new Buffer<>(CALL_BUFFER_CAPACITY,
+            Buffer.OverflowPolicy.BLOCK, CALL_BUFFER_OFFER_TIMEOUT, TimeUnit.MILLISECONDS);
+    private static final Buffer<Event> eventExecutionBuffer = new Buffer<>(EVENT_BUFFER_CAPACITY);
     private static final String CMD_HEADER = "(MAIN) ";
 
     public static void main(String[] args) {
 
 
-        // Timed events manager
-        ScheduledThreadPoolExecutor timedEventsExecutor = new ScheduledThreadPoolExecutor(100);
-
-
         // Data management processor
         DataManagementProcessor dmp;
         try {
@@ -39,6 +46,9 @@ public class MainC {
         }
         dmp.initialize();
 
+        // Timed events manager
+        ReminderScheduler timedEvents = new ReminderScheduler(dmp, eventExecutionBuffer);
+
         // Event listener(s)
         GuildListener listener1 = new GuildListener(dmp, callBuffer);
 
@@ -48,6 +58,9 @@ public class MainC {
             // TODO research about intents to optimize the bot
             JDA jda = JDABuilder.createDefault(args[0], EnumSet.allOf(GatewayIntent.class))
                     .addEventListeners(listener1)
+                    // Every member is cached (and chunked before the ready event), the blacklist is seeded from the cache
+                    .setMemberCachePolicy(MemberCachePolicy.ALL)
+                    .setChunkingFilter(ChunkingFilter.ALL)
                     /*
                      * Status suggestions:
                      *
@@ -65,17 +78,25 @@ public class MainC {
             // Event handler thread
             Thread eventProcessor = new Thread(new EventHandler(eventExecutionBuffer, jda));
             eventProcessor.start();
+            // Reminders pending from before the restart (the handler must be up to deliver the overdue ones)
+            timedEvents.restore();
 
             // Listening station
+            List<Pair<Integer, Event>> commands = new ArrayList<>(LISTENING_BATCH_SIZE);
             while (true) {
-                Pair<Integer, Event> command = callBuffer.getData();
-                switch (command.first()) {
-                    case 1: { // Timer event(remindme). Data: the TimerEvent
-                        timedEventsExecutor.schedule(() -> eventExecutionBuffer.queue(command.second()), command.second().getDelay(), TimeUnit.SECONDS);
-                        System.out.println(CMD_HEADER + "Timer event scheduled. ID: ");
-                        break;
+                // Blocks for the first command, then takes whatever else piled up in the meantime
+                commands.add(callBuffer.getData());
+                callBuffer.drainTo(commands, LISTENING_BATCH_SIZE - 1);
+                for (Pair<Integer, Event> command : commands) {
+                    switch (command.first()) {
+                        case 1: { // Timer event(remindme). Data: the TimerEvent
+                            timedEvents.schedule(command.second());
+                            System.out.println(CMD_HEADER + "Timer event scheduled. ID: " + command.second().getId() + " (" + timedEvents + ")");
+                            break;
+                        }
                     }
                 }
+                commands.clear();
             }
         }
         catch (LoginException l) {
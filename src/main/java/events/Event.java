@@ -9,8 +9,15 @@ public abstract class Event {
     private final long id;
 
     public Event(long delay, long id) {
+        this(OffsetDateTime.now(), delay, id);
+    }
+
+    /**
+     * <p>Recreates an event received in the past, e.g. one loaded from the database.</p>
+     */
+    public Event(OffsetDateTime timeReceived, long delay, long id) {
         this.id = id;
-        this.timeReceived = OffsetDateTime.now();
+        this.timeReceived = timeReceived;
         this.delay = delay;
     }
 
@@ -22,6 +29,13 @@ public abstract class Event {
         return delay;
     }
 
+    /**
+     * @return The moment the event is due, {@link #getDelay()} seconds after it was received
+     */
+    public OffsetDateTime getDueTime() {
+        return timeReceived.plusSeconds(delay);
+    }
+
     public long getId() {
         return id;
     }
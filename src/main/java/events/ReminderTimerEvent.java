@@ -1,15 +1,36 @@
 package events;
 
+import java.time.OffsetDateTime;
+
 public class ReminderTimerEvent extends TimerEvent{
 
     private final String message;
+    // Run once the reminder reached its user
+    private volatile Runnable onDelivered;
 
     public ReminderTimerEvent(long delay, long id, String userID, String guildID, String messageID, String message) {
         super(delay, id, userID, guildID, messageID);
         this.message = message;
     }
 
+    public ReminderTimerEvent(OffsetDateTime timeReceived, long delay, long id, String userID, String guildID, String messageID, String message) {
+        super(timeReceived, delay, id, userID, guildID, messageID);
+        this.message = message;
+    }
+
     public String getMessage() {
         return message;
     }
+
+    public void setOnDelivered(Runnable onDelivered) {
+        this.onDelivered = onDelivered;
+    }
+
+    /**
+     * <p>Signals the reminder was sent to its user.</p>
+     */
+    public void delivered() {
+        Runnable action = onDelivered;
+        if (action != null) action.run();
+    }
 }
@@ -1,5 +1,7 @@
 package events;
 
+import java.time.OffsetDateTime;
+
 public class TimerEvent extends Event {
 
     private final String userID;
@@ -13,6 +15,13 @@ public class TimerEvent extends Event {
         this.messageID = messageID;
     }
 
+    public TimerEvent(OffsetDateTime timeReceived, long delay, long id, String userID, String guildID, String messageID) {
+        super(timeReceived, delay, id);
+        this.userID = userID;
+        this.guildID = guildID;
+        this.messageID = messageID;
+    }
+
     public String getUserID() {
         return userID;
     }
@@ -0,0 +1,112 @@
+package events.handler;
+
+import events.Event;
+import util.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * <p>Delivers events to the handlers registered for their type, on a pool of worker threads.</p>
+ * An event goes to the handlers of the most specific registered type it is an instance of: handlers for
+ * {@code ReminderTimerEvent} get reminders, handlers for {@code TimerEvent} get every other timer event. That lookup
+ * walks the class hierarchy only the first time a class is published; after that it's a single map read. Every
+ * published type keeps a histogram of the time from publication to the end of its handlers.
+ */
+public class EventBus {
+
+    private static final String CMD_HEADER = "(BUS) ";
+
+    private final Map<Class<?>, List<Consumer<Event>>> handlers = new ConcurrentHashMap<>();
+    // Class of the published event -> handlers it resolved to
+    private final Map<Class<?>, Route> routes = new ConcurrentHashMap<>();
+    private final ExecutorService workers;
+
+    /**
+     * @param threads Amount of worker threads.
+     */
+    public EventBus(int threads) {
+        AtomicInteger workerCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "event-worker-" + workerCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * <p>Registers a handler for events of the specified type, and its subtypes that don't have handlers of their own.</p>
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <E extends Event> void register(Class<E> type, Consumer<? super E> handler) {
+        handlers.computeIfAbsent(type, t -> new CopyOnWriteArrayList<>()).add(e -> ((Consumer<E>) handler).accept((E) e));
+        // Resolutions may now point to a less specific type
+        routes.clear();
+    }
+
+    public void publish(Event event) {
+        Route route = routes.computeIfAbsent(event.getClass(), this::resolve);
+        if (route.handlers.isEmpty()) {
+            System.err.println(CMD_HEADER + "WARNING: No handler for " + event.getClass().getSimpleName() + ", dropping it.");
+            return;
+        }
+        long published = System.nanoTime();
+        try {
+            workers.execute(() -> {
+                for (Consumer<Event> handler : route.handlers) {
+                    try {
+                        handler.accept(event);
+                    } catch (Exception e) {
+                        System.err.println(CMD_HEADER + "ERROR: Handler for " + event.getClass().getSimpleName() + " threw an exception. Trace below:");
+                        e.printStackTrace();
+                    }
+                }
+                route.latency.record(System.nanoTime() - published, TimeUnit.NANOSECONDS);
+            });
+        } catch (RejectedExecutionException e) {
+            System.err.println(CMD_HEADER + "WARNING: Bus is shut down, dropping " + event.getClass().getSimpleName() + ".");
+        }
+    }
+
+    /**
+     * @return The latency histogram of events of exactly this class, or {@code null} if none was published yet
+     */
+    public LatencyHistogram getLatency(Class<? extends Event> type) {
+        Route route = routes.get(type);
+        return route == null ? null : route.latency;
+    }
+
+    /**
+     * @return One line per published event class with its latencies
+     */
+    public String getLatencyReport() {
+        StringBuilder sb = new StringBuilder();
+        routes.forEach((type, route) -> sb.append(type.getSimpleName()).append(": ").append(route.latency).append("\n"));
+        return sb.toString();
+    }
+
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    private Route resolve(Class<?> type) {
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            List<Consumer<Event>> registered = handlers.get(c);
+            if (registered != null) return new Route(new ArrayList<>(registered));
+        }
+        return new Route(new ArrayList<>());
+    }
+
+    private static final class Route {
+        private final List<Consumer<Event>> handlers;
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private Route(List<Consumer<Event>> handlers) {
+            this.handlers = handlers;
+        }
+    }
+}
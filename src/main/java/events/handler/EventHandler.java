@@ -2,40 +2,66 @@ package events.handler;
 
 import events.*;
 import net.dv8tion.jda.api.JDA;
-import net.dv8tion.jda.api.entities.User;
 import util.Buffer;
 
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Takes due events from the buffer and publishes them on an {@link EventBus}, so slow handlers don't hold up the rest.</p>
+ * The handling latencies of the bus are logged periodically.
+ */
 public class EventHandler implements Runnable{
 
     private static final String CMD_HEADER = "(EVENTS) ";
+    public static final int DEFAULT_THREADS = 4;
+    private static final long REPORT_MINUTES = 60;
 
     private final Buffer<Event> eventInput;
     private final JDA jda;
+    private final EventBus bus;
+    private final ReminderDelivery reminders;
+    private final ScheduledExecutorService reporter;
     protected boolean alive = true;
 
     public EventHandler(Buffer<Event> buffer, JDA jda) {
+        this(buffer, jda, DEFAULT_THREADS);
+    }
+
+    public EventHandler(Buffer<Event> buffer, JDA jda, int threads) {
         this.eventInput = buffer;
         this.jda = jda;
+        this.bus = new EventBus(threads);
+        this.reminders = new ReminderDelivery(jda);
+        bus.register(Event.class, this::onEvent);
+        bus.register(TimerEvent.class, this::onTimerEvent);
+        bus.register(ReminderTimerEvent.class, this::onReminderTimerEvent);
+        bus.register(StatusEvent.class, this::onStatusEvent);
+        this.reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "event-latency-report");
+            t.setDaemon(true);
+            return t;
+        });
+        reporter.scheduleAtFixedRate(this::reportLatency, REPORT_MINUTES, REPORT_MINUTES, TimeUnit.MINUTES);
     }
 
+    private void reportLatency() {
+        String report = bus.getLatencyReport();
+        if (!report.isEmpty()) System.out.print(CMD_HEADER + "Handling latencies:\n" + report);
+    }
 
     private void onEvent(Event e) {
         System.out.println(CMD_HEADER + "Event received.");
     }
 
     private void onTimerEvent(TimerEvent e) {
-        if (e instanceof ReminderTimerEvent) {
-            onReminderTimerEvent((ReminderTimerEvent) e);
-            return;
-        }
         System.out.println(CMD_HEADER + "Timer event received.");
     }
     private void onReminderTimerEvent(ReminderTimerEvent e) {
         System.out.println(CMD_HEADER + "Reminder timer event received.");
 
-        User user = jda.getUserById(e.getUserID());
-        if (user != null) user.openPrivateChannel().queue((c -> c.sendMessage("Reminder: " + e.getMessage()).queue()));
-        else System.err.println("WARNING: user ID \"" + e.getUserID() + "\" not found! Unable to send reminder.");
+        reminders.deliver(e);
     }
 
     private void onStatusEvent(StatusEvent e) {
@@ -44,14 +70,10 @@ public class EventHandler implements Runnable{
 
     @Override
     public void run() {
-        Event e;
-        while (alive) {
-            e = eventInput.getData().second();
-
-            if (e instanceof TimerEvent) onTimerEvent((TimerEvent) e);
-            else if (e instanceof StatusEvent) onStatusEvent((StatusEvent) e);
-            else onEvent(e);
-        }
+        while (alive) bus.publish(eventInput.getData().second());
+        bus.shutdown();
+        reminders.shutdown();
+        reporter.shutdown();
 
     }
 }
@@ -0,0 +1,121 @@
+package events.handler;
+
+import events.ReminderTimerEvent;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.PrivateChannel;
+import util.Messages;
+import util.TokenBucket;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Sends due reminders to their users through private messages.</p>
+ * Reminders are held for a short window, and every user gets a single message with all of their reminders in it
+ * instead of one per reminder. Private channels are kept in an LRU cache so they are only opened once, and every
+ * request to Discord takes a permit from a token bucket, so a burst of reminders is spread out instead of running
+ * into the rate limits. Everything is sent from a single delivery thread.
+ */
+public class ReminderDelivery {
+
+    private static final String CMD_HEADER = "(REMINDERS) ";
+    private static final long COALESCE_MILLIS = 1000;
+    private static final int CHANNEL_CACHE_SIZE = 1000;
+    // Well under the global limit of 50 requests per second, leaving room for everything else the bot does
+    private static final int BURST_REQUESTS = 10;
+    private static final int REQUESTS_PER_SECOND = 5;
+
+    private final JDA jda;
+    private final ScheduledExecutorService sender;
+    private final TokenBucket requests = new TokenBucket(BURST_REQUESTS, REQUESTS_PER_SECOND, 1, TimeUnit.SECONDS);
+    // User ID -> reminders waiting for the next flush
+    private Map<String, List<ReminderTimerEvent>> pending = new LinkedHashMap<>();
+    private boolean flushScheduled;
+    private final Map<String, PrivateChannel> channels = new LinkedHashMap<String, PrivateChannel>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PrivateChannel> eldest) {
+            return size() > CHANNEL_CACHE_SIZE;
+        }
+    };
+
+    public ReminderDelivery(JDA jda) {
+        this.jda = jda;
+        this.sender = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "reminder-delivery");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public synchronized void deliver(ReminderTimerEvent reminder) {
+        pending.computeIfAbsent(reminder.getUserID(), id -> new ArrayList<>()).add(reminder);
+        if (!flushScheduled) {
+            flushScheduled = true;
+            sender.schedule(this::flush, COALESCE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void shutdown() {
+        sender.shutdown();
+    }
+
+    private void flush() {
+        Map<String, List<ReminderTimerEvent>> batch;
+        synchronized (this) {
+            batch = pending;
+            pending = new LinkedHashMap<>();
+            flushScheduled = false;
+        }
+        for (Map.Entry<String, List<ReminderTimerEvent>> entry : batch.entrySet()) {
+            try {
+                send(entry.getKey(), entry.getValue());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                System.err.println("WARNING: Unable to send " + entry.getValue().size() + " reminders to user ID \"" + entry.getKey() + "\". Trace below:");
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void send(String userID, List<ReminderTimerEvent> reminders) throws InterruptedException {
+        PrivateChannel channel = channels.get(userID);
+        if (channel == null) {
+            requests.acquire();
+            channel = jda.retrieveUserById(userID).complete().openPrivateChannel().complete();
+            channels.put(userID, channel);
+        }
+        List<String> texts = new ArrayList<>(reminders.size());
+        for (ReminderTimerEvent reminder : reminders) texts.add(reminder.getMessage());
+        List<String> messages = format(texts);
+        // The reminders stay stored until every message made it, so a restart before that sends them again
+        AtomicInteger remaining = new AtomicInteger(messages.size());
+        for (String message : messages) {
+            requests.acquire();
+            channel.sendMessage(message).queue(sent -> {
+                if (remaining.decrementAndGet() == 0) reminders.forEach(ReminderTimerEvent::delivered);
+            }, e -> {
+                System.err.println("WARNING: Reminder for user ID \"" + userID + "\" not delivered. Trace below:");
+                e.printStackTrace();
+            });
+        }
+        System.out.println(CMD_HEADER + "Delivered " + reminders.size() + " reminders to user ID " + userID + ".");
+    }
+
+    /**
+     * @return The reminders as messages, split so none goes over the length limit
+     */
+    static List<String> format(List<String> reminders) {
+        List<String> lines = new ArrayList<>();
+        if (reminders.size() == 1) lines.add("Reminder: " + reminders.get(0));
+        else {
+            lines.add("Reminders:");
+            for (String reminder : reminders) lines.add("- " + reminder);
+        }
+        return Messages.splitMessages(lines);
+    }
+}
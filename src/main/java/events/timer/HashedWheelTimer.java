@@ -0,0 +1,283 @@
+package events.timer;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Timer running any amount of delayed tasks on a single thread.</p>
+ * Time is split in ticks, and tasks are hashed into buckets by the tick they are due on. The buckets form a hierarchy
+ * of wheels: the first one has a bucket per tick, and every wheel above it has a bucket per whole lap of the wheel
+ * below. When a wheel completes a lap, the next bucket of the wheel above is emptied into it, so far away tasks move
+ * down one wheel at a time until they land in the bucket of their exact tick. Scheduling, cancelling and expiring are
+ * all constant time, and each pending task costs a single small node. The price is precision: tasks run up to one
+ * tick late.
+ */
+public class HashedWheelTimer {
+
+    private static final String CMD_HEADER = "(TIMER) ";
+    // Bounds the work done per tick when a huge amount of tasks is scheduled at once
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+    // Bits of the tick number covered by each wheel: 256 buckets for the first one, 64 for the rest
+    private static final int[] WHEEL_BITS = {8, 6, 6, 6, 6};
+
+    private final long tickNanos;
+    private final Bucket[][] wheels;
+    private final int[] shifts;
+    private final long maxDelta;
+    private final Queue<Timeout> pendingAdds = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> pendingCancels = new ConcurrentLinkedQueue<>();
+    private final long startTime;
+    private final Thread worker;
+    private volatile boolean running = true;
+    private long tick;
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong scheduledCount = new AtomicLong();
+    private final AtomicLong cancelledCount = new AtomicLong();
+    // Only written by the timer thread
+    private volatile long firedCount;
+    private volatile long totalLateMillis;
+    private volatile long maxLateMillis;
+
+    /**
+     * @param tickDuration Length of a tick. Tasks run up to this late.
+     * @param unit         Unit of {@code tickDuration}.
+     * @param name         Name of the timer thread.
+     */
+    public HashedWheelTimer(long tickDuration, TimeUnit unit, String name) {
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.wheels = new Bucket[WHEEL_BITS.length][];
+        this.shifts = new int[WHEEL_BITS.length];
+        int shift = 0;
+        for (int level = 0; level != WHEEL_BITS.length; level++) {
+            wheels[level] = new Bucket[1 << WHEEL_BITS[level]];
+            for (int i = 0; i != wheels[level].length; i++) wheels[level][i] = new Bucket();
+            shifts[level] = shift;
+            shift += WHEEL_BITS[level];
+        }
+        this.maxDelta = (1L << shift) - 1;
+        this.startTime = System.nanoTime();
+        this.worker = new Thread(this::work, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * <p>Runs {@code task} on the timer thread once {@code delay} has passed. Tasks must be quick, as they hold up
+     * every task after them.</p>
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        Timeout timeout = new Timeout(task, System.nanoTime() - startTime + unit.toNanos(Math.max(0, delay)));
+        pending.incrementAndGet();
+        scheduledCount.incrementAndGet();
+        pendingAdds.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * @return Amount of scheduled tasks that didn't run or get cancelled yet
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    public long getScheduledCount() {
+        return scheduledCount.get();
+    }
+
+    public long getFiredCount() {
+        return firedCount;
+    }
+
+    public long getCancelledCount() {
+        return cancelledCount.get();
+    }
+
+    /**
+     * @return Average time between the moment tasks were due and the moment they ran
+     */
+    public long getAverageLateMillis() {
+        long fired = firedCount;
+        return fired == 0 ? 0 : totalLateMillis / fired;
+    }
+
+    public long getMaxLateMillis() {
+        return maxLateMillis;
+    }
+
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    @Override
+    public String toString() {
+        return "pending=" + getPendingCount() +
+                ", scheduled=" + getScheduledCount() +
+                ", fired=" + getFiredCount() +
+                ", cancelled=" + getCancelledCount() +
+                ", lateAvg=" + getAverageLateMillis() + "ms" +
+                ", lateMax=" + getMaxLateMillis() + "ms";
+    }
+
+    private void work() {
+        while (running) {
+            long sleepNanos = (tick + 1) * tickNanos - (System.nanoTime() - startTime);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    continue;
+                }
+            }
+            processCancels();
+            transferAdds();
+            // Higher wheels first, so their tasks can keep cascading down on this same tick
+            for (int level = wheels.length - 1; level != 0; level--)
+                if ((tick & ((1L << shifts[level]) - 1)) == 0) cascade(level);
+            bucketOf(0, tick).expire();
+            tick++;
+        }
+    }
+
+    private void processCancels() {
+        Timeout timeout;
+        while ((timeout = pendingCancels.poll()) != null)
+            if (timeout.bucket != null) timeout.bucket.remove(timeout);
+    }
+
+    private void transferAdds() {
+        for (int i = 0; i != MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = pendingAdds.poll();
+            if (timeout == null) return;
+            if (timeout.isCancelled()) continue;
+            place(timeout);
+        }
+    }
+
+    private void place(Timeout timeout) {
+        long dueTick = Math.max(timeout.deadline / tickNanos, tick);
+        // Tasks beyond the top wheel wait in its furthest bucket, and get placed again once it comes around
+        long delta = Math.min(dueTick - tick, maxDelta);
+        int level = 0;
+        while (level != wheels.length - 1 && delta >> shifts[level + 1] != 0) level++;
+        bucketOf(level, tick + delta).add(timeout);
+    }
+
+    private void cascade(int level) {
+        Bucket bucket = bucketOf(level, tick);
+        Timeout timeout = bucket.head;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            bucket.remove(timeout);
+            if (!timeout.isCancelled()) place(timeout);
+            timeout = next;
+        }
+    }
+
+    private Bucket bucketOf(int level, long tick) {
+        Bucket[] wheel = wheels[level];
+        return wheel[(int) ((tick >>> shifts[level]) & (wheel.length - 1))];
+    }
+
+    private void recordFired(Timeout timeout) {
+        long late = Math.max(0, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime - timeout.deadline));
+        firedCount++;
+        totalLateMillis += late;
+        if (late > maxLateMillis) maxLateMillis = late;
+    }
+
+    /**
+     * <p>Handle to a scheduled task.</p>
+     */
+    public final class Timeout {
+
+        private static final int WAITING = 0, CANCELLED = 1, EXPIRED = 2;
+
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private Bucket bucket;
+        private Timeout next, prev;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * @return {@code true} if the task was cancelled, {@code false} if it already ran or was cancelled before
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(WAITING, CANCELLED)) return false;
+            pending.decrementAndGet();
+            cancelledCount.incrementAndGet();
+            pendingCancels.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(WAITING, EXPIRED)) return;
+            pending.decrementAndGet();
+            recordFired(this);
+            try {
+                task.run();
+            } catch (Exception e) {
+                System.err.println(CMD_HEADER + "ERROR: Timer task threw an exception. Trace below:");
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * <p>Doubly linked list of the tasks hashed into one bucket. Only touched by the timer thread.</p>
+     */
+    private static final class Bucket {
+
+        private Timeout head, tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) head = tail = timeout;
+            else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        /**
+         * <p>Runs every task in the bucket. Only called on the first wheel, where a bucket holds a single tick.</p>
+         */
+        void expire() {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                remove(timeout);
+                timeout.expire();
+                timeout = next;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.bucket != this) return;
+            if (timeout.prev != null) timeout.prev.next = timeout.next;
+            else head = timeout.next;
+            if (timeout.next != null) timeout.next.prev = timeout.prev;
+            else tail = timeout.prev;
+            timeout.next = timeout.prev = null;
+            timeout.bucket = null;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package events.timer;
+
+import events.Event;
+import events.ReminderTimerEvent;
+import processers.persistence.DataManagementProcessor;
+import util.Buffer;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Schedules timed events, keeping reminders in the database until they fire.</p>
+ * Reminders are stored as soon as they are scheduled and only removed once delivered to their user, so the ones still
+ * pending or waiting for delivery when the bot stops are rescheduled by {@link #restore()} on the next start.
+ * Reminders that came due while the bot was down are delivered right away. Pending events can be cancelled by their
+ * {@link Event#getId()}. A due event that doesn't fit in the output buffer is retried shortly after, so a backed up
+ * handler never holds up the wheel.
+ */
+public class ReminderScheduler {
+
+    private static final String CMD_HEADER = "(REMINDERS) ";
+    private static final long TICK_MILLIS = 100;
+    private static final long RETRY_MILLIS = 1000;
+
+    private final DataManagementProcessor dmp;
+    private final Buffer<Event> output;
+    private final HashedWheelTimer wheel;
+    private final Map<Long, HashedWheelTimer.Timeout> timeouts = new ConcurrentHashMap<>();
+
+    /**
+     * @param output Buffer due events are queued into.
+     */
+    public ReminderScheduler(DataManagementProcessor dmp, Buffer<Event> output) {
+        this.dmp = dmp;
+        this.output = output;
+        this.wheel = new HashedWheelTimer(TICK_MILLIS, TimeUnit.MILLISECONDS, "reminder-wheel");
+    }
+
+    /**
+     * <p>Reschedules every reminder stored in the database.</p>
+     */
+    public void restore() {
+        OffsetDateTime now = OffsetDateTime.now();
+        int overdue = 0;
+        for (ReminderTimerEvent reminder : dmp.getReminders()) {
+            if (!reminder.getDueTime().isAfter(now)) overdue++;
+            arm(reminder);
+        }
+        System.out.println(CMD_HEADER + "Restored " + dmp.getReminderCount() + " reminders (" + overdue + " overdue).");
+    }
+
+    /**
+     * <p>Queues the event into the output buffer once it's due. Reminders are stored until then.</p>
+     */
+    public void schedule(Event event) {
+        if (event instanceof ReminderTimerEvent) dmp.addReminder((ReminderTimerEvent) event);
+        arm(event);
+    }
+
+    /**
+     * @return {@code true} if the event was pending and got cancelled, {@code false} if it already fired or never existed
+     */
+    public boolean cancel(long id) {
+        HashedWheelTimer.Timeout timeout = timeouts.remove(id);
+        if (timeout == null || !timeout.cancel()) return false;
+        dmp.removeReminder(Long.toString(id));
+        System.out.println(CMD_HEADER + "Cancelled event " + id + ".");
+        return true;
+    }
+
+    public boolean isPending(long id) {
+        return timeouts.containsKey(id);
+    }
+
+    public int getPendingCount() {
+        return wheel.getPendingCount();
+    }
+
+    public long getScheduledCount() {
+        return wheel.getScheduledCount();
+    }
+
+    public long getFiredCount() {
+        return wheel.getFiredCount();
+    }
+
+    public long getCancelledCount() {
+        return wheel.getCancelledCount();
+    }
+
+    public long getAverageLateMillis() {
+        return wheel.getAverageLateMillis();
+    }
+
+    public long getMaxLateMillis() {
+        return wheel.getMaxLateMillis();
+    }
+
+    @Override
+    public String toString() {
+        return wheel.toString();
+    }
+
+    public void stop() {
+        wheel.stop();
+    }
+
+    private void arm(Event event) {
+        if (event instanceof ReminderTimerEvent) {
+            String id = Long.toString(event.getId());
+            ((ReminderTimerEvent) event).setOnDelivered(() -> dmp.removeReminder(id));
+        }
+        long delay = Duration.between(OffsetDateTime.now(), event.getDueTime()).toMillis();
+        HashedWheelTimer.Timeout timeout = wheel.schedule(() -> fire(event), delay, TimeUnit.MILLISECONDS);
+        timeouts.put(event.getId(), timeout);
+        // It may have fired before being registered
+        if (timeout.isExpired()) timeouts.remove(event.getId(), timeout);
+    }
+
+    private void fire(Event event) {
+        if (!output.offer(event)) {
+            System.err.println(CMD_HEADER + "WARNING: Event buffer full, retrying event " + event.getId() + " in " + RETRY_MILLIS + "ms.");
+            timeouts.put(event.getId(), wheel.schedule(() -> fire(event), RETRY_MILLIS, TimeUnit.MILLISECONDS));
+            return;
+        }
+        timeouts.remove(event.getId());
+    }
+}
@@ -13,14 +13,21 @@ import net.dv8tion.jda.api.hooks.ListenerAdapter;
 import org.jetbrains.annotations.NotNull;
 import processers.administration.BlacklistProcessor;
 import processers.commands.AdminCommandProcessor;
+import processers.commands.CommandContext;
+import processers.commands.CommandDispatcher;
 import processers.commands.PublicCommandProcessor;
 import processers.persistence.DataManagementProcessor;
+import processers.persistence.QuoteBackfill;
 import util.Buffer;
+import util.LongHashSet;
+import util.Snowflake;
 
 import javax.annotation.Nonnull;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 import static java.util.Objects.requireNonNull;
 
@@ -32,16 +39,24 @@ public class GuildListener extends ListenerAdapter implements ClownActions {
     public static Buffer<Event> callBuffer;
     public static final String adminKeyChars = "e!";                            // Key string to detect admin commands
     public static final String userKeyChars = ",";                              // Key string to detect user commands
+    private static final int COMMAND_THREADS = 4;
+    private static final int MAX_PENDING_COMMANDS_PER_GUILD = 32;
+    private static final long COMMAND_TIMEOUT_SECONDS = 120;
     private AdminCommandProcessor adminCommandProcessor;
     private final BlacklistProcessor blacklistProcessor;
     private PublicCommandProcessor publicCommandProcessor;
+    private final CommandDispatcher commandDispatcher;
 
     private final processers.persistence.DataManagementProcessor dmp;
+    // IDs of the members with the blacklisted role. Replaced as a whole on every change, so reads need no lock.
+    // Seeded from the member cache, so it relies on every member being cached (see MainC)
+    private volatile LongHashSet blacklistedMembers = new LongHashSet();
 
     public GuildListener(DataManagementProcessor dmp, Buffer<Event> callBuffer) {
         GuildListener.callBuffer = callBuffer;
         this.dmp = dmp;
         this.blacklistProcessor = new BlacklistProcessor(dmp);
+        this.commandDispatcher = new CommandDispatcher(COMMAND_THREADS, MAX_PENDING_COMMANDS_PER_GUILD, COMMAND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
     }
 
     @Override
@@ -49,6 +64,18 @@ public class GuildListener extends ListenerAdapter implements ClownActions {
         Guild guild = event.getJDA().getGuildById(GUILD_ID);
         adminCommandProcessor = new AdminCommandProcessor(adminKeyChars, guild, dmp);
         publicCommandProcessor = new PublicCommandProcessor(userKeyChars, guild, dmp);
+        new QuoteBackfill(guild, dmp).start();
+
+        // Blacklisted members
+        Role blacklisted = guild.getRoleById(BLACKLISTED_ROLE_ID);
+        if (blacklisted == null) System.err.println("WARNING: Blacklisted role not found, nobody will be treated as blacklisted.");
+        else {
+            List<Member> members = guild.getMembersWithRoles(blacklisted);
+            LongHashSet ids = new LongHashSet(members.size());
+            for (Member member : members) ids.add(member.getIdLong());
+            blacklistedMembers = ids;
+            System.out.println(ids.size() + " blacklisted members loaded.");
+        }
     }
 
     @Override
@@ -68,22 +95,24 @@ public class GuildListener extends ListenerAdapter implements ClownActions {
 
         // Admin commands
         if (content.startsWith(adminKeyChars)) {
-            String log = adminCommandProcessor.processCommand(message);
-            if (adminCommandProcessor.lastCommandFailure())
-                requireNonNull(guild.getMemberById(dmp.getBotOwner())).getUser().openPrivateChannel().queue(c -> c.sendMessage(log).queue());
+            dispatchCommand(message, () -> {
+                CommandContext ctx = adminCommandProcessor.processCommand(message);
+                if (!ctx.isHandled()) sendToBotOwner(guild, ctx.getLog());
+            });
             return;
         }
 
         // User commands
         else if (content.startsWith(userKeyChars)) {
-            String log = publicCommandProcessor.processCommand(message);
-            if (publicCommandProcessor.lastCommandFailure())
-                requireNonNull(guild.getMemberById(dmp.getBotOwner())).getUser().openPrivateChannel().queue(c -> c.sendMessage(log).queue());
+            dispatchCommand(message, () -> {
+                CommandContext ctx = publicCommandProcessor.processCommand(message);
+                if (!ctx.isHandled()) sendToBotOwner(guild, ctx.getLog());
+            });
             return;
         }
 
         // Blacklisted members
-        if (requireNonNull(msg.getMember(), "User has no roles!").getRoles().contains(msg.getAuthor().getJDA().getRoleById(BLACKLISTED_ROLE_ID))) {
+        if (blacklistedMembers.contains(msg.getAuthor().getIdLong())) {
             blacklistProcessor.processMessage(message);
         }
 
@@ -91,26 +120,23 @@ public class GuildListener extends ListenerAdapter implements ClownActions {
         // As long as it's not in botspam...
         if (!Objects.requireNonNull(dmp.getTextChannel("botspam"), "\"botspam\" channel not found! Contact the bot owner").equals(channel.getId())) {
             // Answer functionality
-            dmp.getAnswerTriggers().stream()
-                    .filter(s -> content.matches("(?s)" + s))
-                    .findFirst().ifPresent(s -> {
-                        System.out.println("\t* Message contains answer keyword:" + s);
-                        channel.sendMessage(dmp.getAnswer(s)).queue();
-                    });
+            String answerTrigger = dmp.findAnswerTrigger(content);
+            if (answerTrigger != null) {
+                System.out.println("\t* Message contains answer keyword:" + answerTrigger);
+                channel.sendMessage(dmp.getAnswer(answerTrigger)).queue();
+            }
         }
 
         // Reaction functionality
-        dmp.getReactionTriggers().stream()
-                .filter(s -> content.matches("(?s)" + s))
-                .forEach(s -> {
-                    System.out.println("\t* Message contains reaction keyword:" + s);
-                    message.addReaction(requireNonNull(guild.getEmoteById(dmp.getReaction(s)), "Emote not found!")).queue();
-                });
+        for (String s : dmp.findReactionTriggers(content)) {
+            System.out.println("\t* Message contains reaction keyword:" + s);
+            message.addReaction(requireNonNull(guild.getEmoteById(dmp.getReaction(s)), "Emote not found!")).queue();
+        }
 
         // @everyone functionality
         if (content.contains("<@&" + dmp.getRole("everyone") + ">")) {
             guild.addRoleToMember(requireNonNull(member).getIdLong(), requireNonNull(guild.getRoleById(dmp.getRole("everyone")), "@everyone role not found! Perhaps the ID changed? Contact the bot owner.")).queue();
-            dmp.addToRestoratorMember(msg.getMember().getId(), requireNonNull(dmp.getRole("everyone"), "@everyone role not found! Perhaps the ID changed? Contact the bot owner."));
+            dmp.addToRestoratorMember(member.getIdLong(), Snowflake.parse(requireNonNull(dmp.getRole("everyone"), "@everyone role not found! Perhaps the ID changed? Contact the bot owner.")));
             System.out.println("\t* User \"" + member.getEffectiveName() + "\" now has @everyone role. Also updated restorator.");
         }
 
@@ -128,15 +154,16 @@ public class GuildListener extends ListenerAdapter implements ClownActions {
 
         // New user role
         event.getGuild().addRoleToMember(event.getMember().getId(), requireNonNull(event.getGuild().getRoleById(dmp.getRole("new-users")))).queue();
-        if (dmp.getRestoratorMemberIDs().contains(event.getMember().getId())) {
+        long[] savedRoles = dmp.getRestoratorRoles(event.getMember().getIdLong());
+        if (savedRoles != null) {
             cmdLogEvent(event.getUser(), "User is registered in the restorator. Restoring roles...");
-            for (String roleID : dmp.getRestoratorRoles(event.getMember().getId())) {
+            for (long roleID : savedRoles) {
                 Role role = event.getGuild().getRoleById(roleID);
                 if (role != null) event.getGuild().addRoleToMember(event.getMember(), role).reason("Role restored").queue();
             }
         } else {
             cmdLogEvent(event.getUser(), "User isn't registered on the restorator. Registering...");
-            dmp.addRestoratorMember(event.getMember().getId());
+            dmp.addRestoratorMember(event.getMember().getIdLong());
         }
         System.out.println();
     }
@@ -144,6 +171,7 @@ public class GuildListener extends ListenerAdapter implements ClownActions {
     @Override
     public void onGuildMemberRemove(@NotNull GuildMemberRemoveEvent event) {
         cmdLogEvent(event.getUser(), "User removed from server.\n");
+        updateBlacklisted(event.getUser().getIdLong(), false);
 
         // Another user left the chat quick implementation
         requireNonNull(event.getGuild().getTextChannelById(dmp.getTextChannel("general")))
@@ -153,13 +181,39 @@ public class GuildListener extends ListenerAdapter implements ClownActions {
     @Override
     public void onGuildMemberRoleAdd(@NotNull GuildMemberRoleAddEvent event) {
         cmdLogEvent(event.getUser(), "User received one or more roles. Logging...");
-        event.getRoles().forEach(role -> dmp.addToRestoratorMember(event.getMember().getId(), role.getId()));
+        event.getRoles().forEach(role -> dmp.addToRestoratorMember(event.getMember().getIdLong(), role.getIdLong()));
+        if (hasBlacklistedRole(event.getRoles())) updateBlacklisted(event.getMember().getIdLong(), true);
     }
 
     @Override
     public void onGuildMemberRoleRemove(@NotNull GuildMemberRoleRemoveEvent event) {
         cmdLogEvent(event.getUser(), "User removed one or more roles from itself. Logging...");
-        event.getRoles().forEach(role -> dmp.removeFromRestoratorMember(event.getMember().getId(), role.getId()));
+        event.getRoles().forEach(role -> dmp.removeFromRestoratorMember(event.getMember().getIdLong(), role.getIdLong()));
+        if (hasBlacklistedRole(event.getRoles())) updateBlacklisted(event.getMember().getIdLong(), false);
+    }
+
+    private static boolean hasBlacklistedRole(List<Role> roles) {
+        for (Role role : roles) if (role.getId().equals(BLACKLISTED_ROLE_ID)) return true;
+        return false;
+    }
+
+    private synchronized void updateBlacklisted(long memberID, boolean blacklisted) {
+        if (blacklistedMembers.contains(memberID) == blacklisted) return;
+        LongHashSet updated = blacklistedMembers.copy();
+        if (blacklisted) updated.add(memberID);
+        else updated.remove(memberID);
+        blacklistedMembers = updated;
+    }
+
+    private void dispatchCommand(Message message, Runnable command) {
+        if (!commandDispatcher.dispatch(message.getGuild().getIdLong(), message.getChannel().getIdLong(), command)) {
+            System.err.println("\t* Command dropped, too many pending commands in this guild.");
+            message.getChannel().sendMessage("Slow down, I'm still busy with the other commands").queue();
+        }
+    }
+
+    private void sendToBotOwner(Guild guild, String log) {
+        requireNonNull(guild.getMemberById(dmp.getBotOwner())).getUser().openPrivateChannel().queue(c -> c.sendMessage(log).queue());
     }
 
     private void cmdLogMessage(Message message) {
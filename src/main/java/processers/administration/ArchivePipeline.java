@@ -0,0 +1,152 @@
+package processers.administration;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.TextChannel;
+import processers.persistence.DataManagementProcessor;
+import util.Messages;
+
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Logs, archives and deletes the messages of blacklisted members in batches.</p>
+ * Infractions are held for a short window. Every flush sends one log message and one archive repost covering all of
+ * them (split only when they don't fit in a single message), and deletes the originals in bulk per channel. Alerts to
+ * the admins about missing channels are sent at most once per cooldown, however many infractions run into them.
+ */
+public class ArchivePipeline {
+
+    private static final String CMD_HEADER = "(ARCHIVE) ";
+    private static final long FLUSH_WINDOW_MILLIS = 2000;
+    private static final long ALERT_COOLDOWN_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    // Discord only bulk deletes between 2 and 100 messages, none older than two weeks
+    private static final int MAX_BULK_DELETE = 100;
+
+    private final DataManagementProcessor dmp;
+    private final ScheduledExecutorService flusher;
+    private List<Message> pending = new ArrayList<>();
+    private boolean flushScheduled;
+    // Alert text -> last time it was sent
+    private final Map<String, Long> lastAlerts = new ConcurrentHashMap<>();
+
+    public ArchivePipeline(DataManagementProcessor dmp) {
+        this.dmp = dmp;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "archive-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public synchronized void submit(Message message) {
+        pending.add(message);
+        if (!flushScheduled) {
+            flushScheduled = true;
+            flusher.schedule(this::flush, FLUSH_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * <p>Sends a private message to every admin, unless the same alert was already sent during the cooldown.</p>
+     */
+    public void alertAdmins(JDA jda, String alert) {
+        long now = System.currentTimeMillis();
+        Long last = lastAlerts.get(alert);
+        if (last != null && now - last < ALERT_COOLDOWN_MILLIS) return;
+        lastAlerts.put(alert, now);
+        for (String id : dmp.getAdministratorIDs()) {
+            jda.retrieveUserById(id).queue(
+                    user -> user.openPrivateChannel().queue(chn -> chn.sendMessage(alert).queue()),
+                    e -> System.err.println(CMD_HEADER + "Unable to find admin!(ID: " + id + "). Did the user leave?"));
+        }
+    }
+
+    public void shutdown() {
+        flusher.shutdown();
+    }
+
+    private void flush() {
+        List<Message> batch;
+        synchronized (this) {
+            batch = pending;
+            pending = new ArrayList<>();
+            flushScheduled = false;
+        }
+        if (batch.isEmpty()) return;
+        try {
+            Guild guild = batch.get(0).getGuild();
+            JDA jda = batch.get(0).getJDA();
+            log(guild, jda, batch);
+            archive(guild, jda, batch);
+            delete(batch);
+            System.out.println(CMD_HEADER + "Handled " + batch.size() + " messages from blacklisted members.");
+        } catch (RuntimeException e) {
+            System.err.println(CMD_HEADER + "ERROR: Unable to handle " + batch.size() + " messages from blacklisted members. Trace below:");
+            e.printStackTrace();
+        }
+    }
+
+    private void log(Guild guild, JDA jda, List<Message> batch) {
+        TextChannel logs = channel(guild, "logs");
+        if (logs == null) {
+            alertAdmins(jda, "No logs channel in memory. Remember to use \"logs\" when declaring it. Blacklisted users sent links, I deleted them.");
+            return;
+        }
+        // Author -> channels they posted in, counting the messages
+        Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+        for (Message m : batch) {
+            counts.computeIfAbsent(m.getAuthor().getName(), a -> new LinkedHashMap<>())
+                    .merge(m.getChannel().getId(), 1, Integer::sum);
+        }
+        List<String> lines = new ArrayList<>();
+        counts.forEach((author, channels) -> {
+            StringBuilder line = new StringBuilder("Infamous poster ").append(author).append(" sent bad stuff in");
+            channels.forEach((channel, count) -> {
+                line.append(" <#").append(channel).append('>');
+                if (count > 1) line.append(" (x").append(count).append(')');
+            });
+            lines.add(line.append('.').toString());
+        });
+        for (String message : Messages.splitMessages(lines)) logs.sendMessage(message).queue();
+    }
+
+    private void archive(Guild guild, JDA jda, List<Message> batch) {
+        TextChannel archive = channel(guild, "archive");
+        if (archive == null) {
+            alertAdmins(jda, "No archive channel in memory. Remember to use \"archive\" when declaring it.");
+            return;
+        }
+        List<String> reposts = new ArrayList<>(batch.size());
+        for (Message m : batch) reposts.add("Sent by " + m.getAuthor().getName() + ":\n" + m.getContentRaw());
+        for (String message : Messages.splitMessages(reposts)) archive.sendMessage(message).queue();
+        System.out.println(CMD_HEADER + "Reposted " + batch.size() + " messages in #" + archive.getName());
+    }
+
+    private void delete(List<Message> batch) {
+        OffsetDateTime bulkLimit = OffsetDateTime.now().minusWeeks(2).plusMinutes(1);
+        Map<TextChannel, List<Message>> byChannel = new LinkedHashMap<>();
+        for (Message m : batch) {
+            if (m.getTimeCreated().isAfter(bulkLimit)) byChannel.computeIfAbsent(m.getTextChannel(), c -> new ArrayList<>()).add(m);
+            else m.delete().reason("Link from a blacklisted user").queue();
+        }
+        byChannel.forEach((channel, messages) -> {
+            for (int i = 0; i < messages.size(); i += MAX_BULK_DELETE) {
+                List<Message> chunk = messages.subList(i, Math.min(i + MAX_BULK_DELETE, messages.size()));
+                if (chunk.size() == 1) chunk.get(0).delete().reason("Link from a blacklisted user").queue();
+                else channel.deleteMessages(new ArrayList<>(chunk)).queue();
+            }
+        });
+        System.out.println("* Deleted " + batch.size() + " messages with reason \"Link from a blacklisted user\"");
+    }
+
+    private TextChannel channel(Guild guild, String name) {
+        String id = dmp.getTextChannel(name);
+        return id == null ? null : guild.getTextChannelById(id);
+    }
+}
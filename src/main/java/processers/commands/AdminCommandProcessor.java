@@ -3,17 +3,19 @@ package processers.commands;
 import net.dv8tion.jda.api.entities.*;
 import net.dv8tion.jda.api.exceptions.ErrorResponseException;
 import org.json.simple.JSONObject;
-import processers.GuildListener;
 import processers.commands.threads.AdminCommandThread;
 import processers.persistence.DataManagementProcessor;
 import util.EmbedBuilder;
 import util.Quote;
+import util.Snowflake;
 import util.Statics;
+import util.UrlScanner;
 
 import java.io.*;
-import java.net.URISyntaxException;
 import java.time.OffsetDateTime;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static processers.commands.threads.AdminCommandThread.OPCODE_ANONFILES_STORE;
@@ -29,6 +31,21 @@ import static processers.commands.threads.AdminCommandThread.OPCODE_QUOTES;
  */
 public class AdminCommandProcessor extends CommandProcessor {
 
+    // Backups and exports: a couple at a time, a few more waiting, the rest turned away
+    private static final int BACKGROUND_THREADS = 2;
+    private static final int BACKGROUND_QUEUE = 4;
+    private static final ExecutorService BACKGROUND = new ThreadPoolExecutor(BACKGROUND_THREADS, BACKGROUND_THREADS,
+            0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(BACKGROUND_QUEUE), new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "admin-background-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
     private static final String
             COMMAND_SAVE = "save",
             COMMAND_HELP = "help",
@@ -68,7 +85,8 @@ public class AdminCommandProcessor extends CommandProcessor {
             COMMAND_SCAN_USER_ROLES = "scan",
             COMMAND_CLEAR_MEMBERS = "clearmembers",
             COMMAND_SHOW_RESTORATOR_MEMBERS = "showrestoratormembers",
-            COMMAND_SHOW_RESTORATOR_MEMBER = "showmemberroles";
+            COMMAND_SHOW_RESTORATOR_MEMBER = "showmemberroles",
+            COMMAND_RESTORATOR_STATS = "restoratorstats";
 
 
     private final String[] help_commands = {
@@ -110,7 +128,8 @@ public class AdminCommandProcessor extends CommandProcessor {
             keyChars + COMMAND_SCAN_USER_ROLES,
             keyChars + COMMAND_CLEAR_MEMBERS,
             keyChars + COMMAND_SHOW_RESTORATOR_MEMBERS,
-            keyChars + COMMAND_SHOW_RESTORATOR_MEMBER
+            keyChars + COMMAND_SHOW_RESTORATOR_MEMBER,
+            keyChars + COMMAND_RESTORATOR_STATS
 
     };
     private final String[] help_descriptions = {
@@ -165,7 +184,8 @@ public class AdminCommandProcessor extends CommandProcessor {
             "Scans every member in the server and updates the role restorator accordingly.",
             "(__Bot owner only__) Removes every single entry on the member atom. Useful for debugging.",
             "Shows information about the different members logged in the role restoration functionality.",
-            "Shows information about a single member's roles. Not really useful, asides from confirming it's in the database."
+            "Shows information about a single member's roles. Not really useful, asides from confirming it's in the database.",
+            "Shows how much memory the role restorator entries take. Useful for debugging."
     };
 
     private final String[] deathQuotes = {
@@ -211,70 +231,71 @@ public class AdminCommandProcessor extends CommandProcessor {
      * @param message {@link Message} received.
      */
     @Override
-    public String processCommand(Message message) {
-        super.processCommand(message);
+    public CommandContext processCommand(Message message) {
+        CommandContext ctx = super.processCommand(message);
 
         // Helper abuse guard
-        if (dmp.getHelperIDs().contains(message.getAuthor().getId()) && !helperCanExecute(args[0])) {
-            log("Admin command failed. Reason: Helper can't execute command \"" + args[0] + "\"\n");
-            commandChannel.sendMessage("Power trip").queue();
-            Arrays.fill(args, null);
-            return log;
+        long authorID = message.getAuthor().getIdLong();
+        if (dmp.isHelper(authorID) && !helperCanExecute(ctx.getCommand())) {
+            log(ctx, "Admin command failed. Reason: Helper can't execute command \"" + ctx.getCommand() + "\"\n");
+            ctx.getChannel().sendMessage("Power trip").queue();
+            ctx.refuse("Helper can't execute command \"" + ctx.getCommand() + "\".");
+            return ctx;
         }
         // Admin + helper guard
-        if (!dmp.getHelperIDs().contains(message.getAuthor().getId()) && !dmp.getAdministratorIDs().contains(message.getAuthor().getId()) && !message.getAuthor().getId().equals("265904613687820288")) {
-            log("Admin command failed. Reason: caller isn't an admin.");
-            Arrays.fill(args, null);
-            return log;
+        if (!dmp.isHelper(authorID) && !dmp.isAdministrator(authorID) && !dmp.isBotOwner(authorID)) {
+            log(ctx, "Admin command failed. Reason: caller isn't an admin.");
+            ctx.refuse("Caller isn't an admin.");
+            return ctx;
         }
 
-        switch(args[0]) {
+        switch(ctx.getCommand()) {
             // General commands
 
             case "save":
                 try {
                     dmp.save();
-                    commandChannel.sendMessage("Saved?").queue();
-                    success = true;
+                    ctx.getChannel().sendMessage("Saved in " + dmp.getLastSnapshotMillis() + "ms (" + dmp.getLastSnapshotBytes() + " bytes)").queue();
+                    ctx.setSuccess(true);
                 } catch (IOException e) {
-                    commandChannel.sendMessage("Unable to save. Admins, check logs for details").queue();
+                    ctx.getChannel().sendMessage("Unable to save. Admins, check logs for details").queue();
                     System.err.println("UNABLE TO SAVE! DETAILS BELOW:");
                     e.printStackTrace();
-                    success = false;
+                    ctx.setSuccess(false);
                 }
                 break;
 
             case COMMAND_CLEAN: {
-                if (hasBadArgs(1, "Give me the amount of messages (between 1 and 100).")) break;
+                if (hasBadArgs(ctx, 1, "Give me the amount of messages (between 1 and 100).")) break;
 
-                success = processClean(args[1]);
+                ctx.setSuccess(processClean(ctx, ctx.arg(1)));
                 break;
             }
             case COMMAND_MEMBER_PURGE: {
-                if (hasBadArgs(4, "Give me a member ID, channel and starting point(ID of the message from which to start).")) break;
+                if (hasBadArgs(ctx, 4, "Give me a member ID, channel and starting point(ID of the message from which to start).")) break;
 
-                success = processPurge(args[1], args[2], args[3]);
+                ctx.setSuccess(processPurge(ctx, ctx.arg(1), ctx.arg(2), ctx.arg(3)));
                 break;
             }
             case COMMAND_ROLE_PURGE: {
-                if (hasBadArgs(1, "Give me a role ID")) break;
+                if (hasBadArgs(ctx, 1, "Give me a role ID")) break;
 
-                success = processRolePurge(args[1]);
+                ctx.setSuccess(processRolePurge(ctx, ctx.arg(1)));
                 break;
             }
             case COMMAND_BROADCAST: {
-                if (hasBadArgs(1, "Give me the message to broadcast.")) break;
+                if (hasBadArgs(ctx, 1, "Give me the message to broadcast.")) break;
 
-                success = processBroadcast(args[1]);
+                ctx.setSuccess(processBroadcast(ctx, ctx.arg(1)));
                 break;
             }
             case COMMAND_MASS_PING: {
-                if (hasBadArgs(2, "Give me the name to ping and a message to include.")) break;
+                if (hasBadArgs(ctx, 2, "Give me the name to ping and a message to include.")) break;
 
                 for (int i = 0; i != 19; i++) message.getChannel().sendMessage("<@" +
-                        message.getGuild().getMembersByEffectiveName(args[1], true).get(0).getId() +
-                        "> " + args[2]).queue();
-                success = true;
+                        message.getGuild().getMembersByEffectiveName(ctx.arg(1), true).get(0).getId() +
+                        "> " + ctx.arg(2)).queue();
+                ctx.setSuccess(true);
                 break;
             }
             case COMMAND_TERMINATE: {
@@ -282,378 +303,392 @@ public class AdminCommandProcessor extends CommandProcessor {
                 System.exit(0);
             }
             case COMMAND_ANONFILES_BACKUP: {
-                Thread thread = new Thread(new AdminCommandThread(OPCODE_ANONFILES_STORE, commandChannel, message.getAuthor(), dmp, guild, args[1], args[2]));
-                thread.start();
-                success = true;
+                ctx.setSuccess(launch(ctx, new AdminCommandThread(OPCODE_ANONFILES_STORE, ctx.getChannel(), message.getAuthor(), dmp, guild, ctx.arg(1), ctx.arg(2))));
                 break;
             }
             // Answer commands
             case COMMAND_ADD_ANSWER: {
-                if (hasBadArgs(2, "Give me the trigger and the answer text.")) break;
+                if (hasBadArgs(ctx, 2, "Give me the trigger and the answer text.")) break;
 
-                success = true;
-                if (dmp.addAnswer(args[1], args[2])) commandChannel.sendMessage("Answer added").queue(); // TODO change addX signatures, update accordingly to the persistence lib
-                else commandChannel.sendMessage("Answer replaced.").queue();
+                ctx.setSuccess(true);
+                if (dmp.addAnswer(ctx.arg(1), ctx.arg(2))) ctx.getChannel().sendMessage("Answer added").queue(); // TODO change addX signatures, update accordingly to the persistence lib
+                else ctx.getChannel().sendMessage("Answer replaced.").queue();
                 break;
             }
             case COMMAND_REMOVE_ANSWER: {
-                if (hasBadArgs(1, "Give me the trigger.")) break;
+                if (hasBadArgs(ctx, 1, "Give me the trigger.")) break;
                 // Check something?
 
-                success = dmp.removeAnswer(args[1]);
-                reason = "Unable to find specified answer.";
-                if (success) commandChannel.sendMessage("Answer deleted.").queue();
-                else commandChannel.sendMessage("Couldn't find it, tough luck.").queue();
+                ctx.setSuccess(dmp.removeAnswer(ctx.arg(1)));
+                ctx.setReason("Unable to find specified answer.");
+                if (ctx.isSuccess()) ctx.getChannel().sendMessage("Answer deleted.").queue();
+                else ctx.getChannel().sendMessage("Couldn't find it, tough luck.").queue();
                 break;
             }
             case COMMAND_ANSWERS: {
-                if (hasBadArgs(0, "This command takes 0 arguments.")) break;
+                if (hasBadArgs(ctx, 0, "This command takes 0 arguments.")) break;
 
-                showAnswers();
-                success = true;
+                showAnswers(ctx);
+                ctx.setSuccess(true);
                 break;
             }
             // Reaction commands
             case COMMAND_ADD_REACTION: {
-                if (hasBadArgs(2, "Give me the trigger and the emote ID.")) break;
+                if (hasBadArgs(ctx, 2, "Give me the trigger and the emote ID.")) break;
                 // Check valid emote
 
-                success = true;
-                if (dmp.addReaction(args[1], args[2])) commandChannel.sendMessage("Reaction added.").queue();
-                else commandChannel.sendMessage("Reaction replaced.").queue();
+                ctx.setSuccess(true);
+                if (dmp.addReaction(ctx.arg(1), ctx.arg(2))) ctx.getChannel().sendMessage("Reaction added.").queue();
+                else ctx.getChannel().sendMessage("Reaction replaced.").queue();
                 break;
             }
             case COMMAND_REMOVE_REACTION: {
-                if (hasBadArgs(1, "Give me the trigger.")) break;
+                if (hasBadArgs(ctx, 1, "Give me the trigger.")) break;
                 // Check something?
 
-                success = dmp.removeReaction(args[1]);
-                reason = "Unable to find specified reaction.";
-                if (success) commandChannel.sendMessage("Reaction deleted.").queue();
-                else commandChannel.sendMessage("Couldn't find it, tough luck.").queue();
+                ctx.setSuccess(dmp.removeReaction(ctx.arg(1)));
+                ctx.setReason("Unable to find specified reaction.");
+                if (ctx.isSuccess()) ctx.getChannel().sendMessage("Reaction deleted.").queue();
+                else ctx.getChannel().sendMessage("Couldn't find it, tough luck.").queue();
                 break;
             }
             case COMMAND_REACTIONS: {
-                if (hasBadArgs(0, "This command takes 0 arguments.")) break;
+                if (hasBadArgs(ctx, 0, "This command takes 0 arguments.")) break;
 
-                showReactions();
-                success = true;
+                showReactions(ctx);
+                ctx.setSuccess(true);
                 break;
             }
             // ID commands
             case COMMAND_ADD_IDENTIFIER: {
-                if (hasBadArgs(2, "Give me the name and the ID.")) break;
+                if (hasBadArgs(ctx, 2, "Give me the name and the ID.")) break;
                 if (!message.getAuthor().getId().equals(Statics.BOT_OWNER)) {
-                    commandChannel.sendMessage("Too bad, only the bot owner can touch this.").queue();
-                    success = false;
-                    reason = "User was not the bot owner.";
+                    ctx.getChannel().sendMessage("Too bad, only the bot owner can touch this.").queue();
+                    ctx.setSuccess(false);
+                    ctx.setReason("User was not the bot owner.");
                     break;
                 }
 
-                success = true;
-                if (dmp.addIdentifier(args[1], args[2])) commandChannel.sendMessage("ID added.").queue();
-                else commandChannel.sendMessage("ID replaced.").queue();
+                ctx.setSuccess(true);
+                if (dmp.addIdentifier(ctx.arg(1), ctx.arg(2))) ctx.getChannel().sendMessage("ID added.").queue();
+                else ctx.getChannel().sendMessage("ID replaced.").queue();
                 break;
             }
             case COMMAND_REMOVE_IDENTIFIER: {
-                if (hasBadArgs(1, "Give me the name.")) break;
+                if (hasBadArgs(ctx, 1, "Give me the name.")) break;
                 if (!message.getAuthor().getId().equals(Statics.BOT_OWNER)) {
-                    commandChannel.sendMessage("Too bad, only the bot owner can touch this.").queue();
-                    success = false;
-                    reason = "User was not the bot owner.";
+                    ctx.getChannel().sendMessage("Too bad, only the bot owner can touch this.").queue();
+                    ctx.setSuccess(false);
+                    ctx.setReason("User was not the bot owner.");
                     break;
                 }
                 // Check something?
 
-                success = dmp.removeIdentifier(args[1]);
-                reason = "Unable to find specified identifier.";
-                if (success) commandChannel.sendMessage("ID deleted.").queue();
-                else commandChannel.sendMessage("Couldn't find it, tough luck.").queue();
+                ctx.setSuccess(dmp.removeIdentifier(ctx.arg(1)));
+                ctx.setReason("Unable to find specified identifier.");
+                if (ctx.isSuccess()) ctx.getChannel().sendMessage("ID deleted.").queue();
+                else ctx.getChannel().sendMessage("Couldn't find it, tough luck.").queue();
 
                 break;
             }
             case COMMAND_IDENTIFIERS: {
-                if (hasBadArgs(0, "This command takes 0 arguments.")) break;
+                if (hasBadArgs(ctx, 0, "This command takes 0 arguments.")) break;
 
-                showIdentifiers();
-                success = true;
+                showIdentifiers(ctx);
+                ctx.setSuccess(true);
                 break;
             }
             // Quote commands
             case COMMAND_REMOVE_QUOTE: {
-                if (hasBadArgs(1, "Give me the ID.")) break;
+                if (hasBadArgs(ctx, 1, "Give me the ID.")) break;
 
-                success = dmp.removeQuote(args[1]);
-                reason = "Unable to find specified quote.";
-                if (success) commandChannel.sendMessage("Quote deleted.").queue();
-                else commandChannel.sendMessage("Couldn't find it, tough luck.").queue();
+                ctx.setSuccess(dmp.removeQuote(ctx.arg(1)));
+                ctx.setReason("Unable to find specified quote.");
+                if (ctx.isSuccess()) ctx.getChannel().sendMessage("Quote deleted.").queue();
+                else ctx.getChannel().sendMessage("Couldn't find it, tough luck.").queue();
                 break;
             }
             case COMMAND_QUOTES: {
-                if (hasBadArgs(0, "This command takes 0 arguments.")) break;
+                if (hasBadArgs(ctx, 0, "This command takes 0 arguments.")) break;
 
-                Thread thread = new Thread(new AdminCommandThread(OPCODE_QUOTES, commandChannel, message.getAuthor(), dmp, guild, args[1], args[2]));
-                thread.start();
-                success = true;
+                ctx.setSuccess(launch(ctx, new AdminCommandThread(OPCODE_QUOTES, ctx.getChannel(), message.getAuthor(), dmp, guild, ctx.arg(1), ctx.arg(2))));
                 break;
             }
             case COMMAND_RAW_QUOTE: {
-                if (hasBadArgs(1, "Give me the quote ID")) break;
+                if (hasBadArgs(ctx, 1, "Give me the quote ID")) break;
 
-                Quote q = dmp.getQuote(args[1]);
+                Quote q = dmp.getQuote(ctx.arg(1));
                 if (q == null) {
-                    success = false;
-                    reason = "Unable to find quote.";
-                    commandChannel.sendMessage("That quote doesn't exist, apparently").queue();
+                    ctx.setSuccess(false);
+                    ctx.setReason("Unable to find quote.");
+                    ctx.getChannel().sendMessage("That quote doesn't exist, apparently").queue();
                     break;
                 }
-                TextChannel tc = guild.getTextChannelById(q.getChannel());
-                if (tc == null) {
-                    success = false;
-                    reason = "Unable to find channel with ID " + q.getChannel() + ".";
-                    commandChannel.sendMessage("The channel where it was quoted doesn't exist anymore, apparently").queue();
-                    break;
-                }
-                Message m = tc.retrieveMessageById(q.getId()).complete();
-                if (m == null) {
-                    success = false;
-                    reason = "Unable to find message with ID " + q.getId() + ".";
-                    commandChannel.sendMessage("The message doesn't exist anymore, apparently").queue();
-                    break;
+                String content = q.getContent();
+                if (content == null) {
+                    // Not backfilled yet, falls back to Discord and caches the answer
+                    TextChannel tc = guild.getTextChannelById(q.getChannel());
+                    if (tc == null) {
+                        ctx.setSuccess(false);
+                        ctx.setReason("Unable to find channel with ID " + q.getChannel() + ".");
+                        ctx.getChannel().sendMessage("The channel where it was quoted doesn't exist anymore, apparently").queue();
+                        break;
+                    }
+                    Message m;
+                    try {
+                        m = tc.retrieveMessageById(q.getId()).complete();
+                    } catch (ErrorResponseException e) {
+                        m = null;
+                    }
+                    if (m == null) {
+                        ctx.setSuccess(false);
+                        ctx.setReason("Unable to find message with ID " + q.getId() + ".");
+                        ctx.getChannel().sendMessage("The message doesn't exist anymore, apparently").queue();
+                        break;
+                    }
+                    content = m.getContentRaw();
+                    dmp.cacheQuoteContent(q.getId(), content);
                 }
                 StringBuilder msg = new StringBuilder("Sent by ");
                 msg.append(q.getNickname());
                 if (!q.getAttachment().equals(""))
                     msg.append("Has attachment: ").append(q.getAttachment());
-                commandChannel.sendMessage(msg.toString()).queue();
-                commandChannel.sendMessage(m.getContentRaw()).queue();
-                success = true;
+                ctx.getChannel().sendMessage(msg.toString()).queue();
+                ctx.getChannel().sendMessage(content).queue();
+                ctx.setSuccess(true);
                 break;
             }
             // JSON object commands
             case COMMAND_REMOVE_JSON_OBJECT: {
-                if (hasBadArgs(1, "Give me the complete identifier.")) break;
+                if (hasBadArgs(ctx, 1, "Give me the complete identifier.")) break;
 
-                success = dmp.removeJSONObject(args[1]);
-                reason = "Unable to find specified object.";
-                if (success) commandChannel.sendMessage("Object deleted.").queue();
-                else commandChannel.sendMessage("Couldn't find it, tough luck.").queue();
+                ctx.setSuccess(dmp.removeJSONObject(ctx.arg(1)));
+                ctx.setReason("Unable to find specified object.");
+                if (ctx.isSuccess()) ctx.getChannel().sendMessage("Object deleted.").queue();
+                else ctx.getChannel().sendMessage("Couldn't find it, tough luck.").queue();
                 break;
             }
             case COMMAND_JSON_OBJECTS: {
 
-                showJSONObjects();
-                success = true;
+                showJSONObjects(ctx);
+                ctx.setSuccess(true);
                 break;
             }
             // Member commands
             case COMMAND_ADD_MEMBER: {
-                if (hasBadArgs(1, "Give me the member identifier.")) break;
+                if (hasBadArgs(ctx, 1, "Give me the member identifier.")) break;
 
-                success = true;
-                if (dmp.addMember(args[1])) commandChannel.sendMessage("Member added.").queue();
-                else commandChannel.sendMessage("Member replaced.").queue();
+                ctx.setSuccess(true);
+                if (dmp.addMember(ctx.arg(1))) ctx.getChannel().sendMessage("Member added.").queue();
+                else ctx.getChannel().sendMessage("Member replaced.").queue();
                 break;
             }
             case COMMAND_ADD_TO_MEMBER: {
-                if (hasBadArgs(2, "Give me the member identifier and the value identifier.")) break;
-                success = dmp.addToMember(args[1], args[2]);
-                reason = "Unable to find member, or member already has specified value.";
-                if (success) commandChannel.sendMessage("Info added successfully.").queue();
-                else commandChannel.sendMessage("Can't add info, either the member doesn't exist or it already has the value.").queue();
+                if (hasBadArgs(ctx, 2, "Give me the member identifier and the value identifier.")) break;
+                ctx.setSuccess(dmp.addToMember(ctx.arg(1), ctx.arg(2)));
+                ctx.setReason("Unable to find member, or member already has specified value.");
+                if (ctx.isSuccess()) ctx.getChannel().sendMessage("Info added successfully.").queue();
+                else ctx.getChannel().sendMessage("Can't add info, either the member doesn't exist or it already has the value.").queue();
                 break;
             }
             case COMMAND_REMOVE_MEMBER: {
-                if (hasBadArgs(1, "Give me the member identifier.")) break;
+                if (hasBadArgs(ctx, 1, "Give me the member identifier.")) break;
 
-                success = dmp.removeMember(args[1]);
-                reason = "Unable to find specified member.";
-                if (success) commandChannel.sendMessage("Member deleted.").queue();
-                else commandChannel.sendMessage("Couldn't find it, tough luck.").queue();
+                ctx.setSuccess(dmp.removeMember(ctx.arg(1)));
+                ctx.setReason("Unable to find specified member.");
+                if (ctx.isSuccess()) ctx.getChannel().sendMessage("Member deleted.").queue();
+                else ctx.getChannel().sendMessage("Couldn't find it, tough luck.").queue();
                 break;
             }
             case COMMAND_REMOVE_FROM_MEMBER: {
-                if (hasBadArgs(2, "Give me the member identifier and the value identifier.")) break;
+                if (hasBadArgs(ctx, 2, "Give me the member identifier and the value identifier.")) break;
 
-                success = dmp.removeFromMember(args[1], args[2]);
-                reason = "Unable to find member, or member doesn't contain the specified value.";
-                if (success) commandChannel.sendMessage("Removed from the member.").queue();
-                else commandChannel.sendMessage("Can't remove info, either the member doesn't exist or it doesn't have the value.").queue();
+                ctx.setSuccess(dmp.removeFromMember(ctx.arg(1), ctx.arg(2)));
+                ctx.setReason("Unable to find member, or member doesn't contain the specified value.");
+                if (ctx.isSuccess()) ctx.getChannel().sendMessage("Removed from the member.").queue();
+                else ctx.getChannel().sendMessage("Can't remove info, either the member doesn't exist or it doesn't have the value.").queue();
                 break;
             }
             case COMMAND_CLEAR_MEMBERS: {
-                if (hasBadArgs(0, "This command takes 0 arguments")) break;
+                if (hasBadArgs(ctx, 0, "This command takes 0 arguments")) break;
                 if (!message.getAuthor().getId().equals(Statics.BOT_OWNER)) {
-                    commandChannel.sendMessage("Too bad, only the bot owner can touch this.").queue();
-                    success = false;
-                    reason = "User was not the bot owner.";
+                    ctx.getChannel().sendMessage("Too bad, only the bot owner can touch this.").queue();
+                    ctx.setSuccess(false);
+                    ctx.setReason("User was not the bot owner.");
                     break;
                 }
 
                 dmp.getMemberNames().forEach(dmp::removeMember);
-                success = true;
+                for (long memberID : dmp.getRestoratorMemberIDs()) dmp.removeRestoratorMember(memberID);
+                ctx.setSuccess(true);
                 break;
             }
             case COMMAND_MEMBERS: {
-                if (hasBadArgs(0, "This command takes 0 arguments.")) break;
+                if (hasBadArgs(ctx, 0, "This command takes 0 arguments.")) break;
 
-                showMembers();
-                success = true;
+                showMembers(ctx);
+                ctx.setSuccess(true);
                 break;
             }
             // Shortcuts
             case COMMAND_ADD_ADMIN: {
-                if (hasBadArgs(2, "Give me the user ID.")) break;
+                if (hasBadArgs(ctx, 2, "Give me the user ID.")) break;
                 if (!message.getAuthor().getId().equals(Statics.BOT_OWNER)) {
-                    commandChannel.sendMessage("Too bad, only the bot owner can touch this.").queue();
-                    success = false;
-                    reason = "User was not the bot owner.";
+                    ctx.getChannel().sendMessage("Too bad, only the bot owner can touch this.").queue();
+                    ctx.setSuccess(false);
+                    ctx.setReason("User was not the bot owner.");
                     break;
                 }
 
-                success = dmp.addAdministrator(args[1], args[1]);
-                reason = "User already an administrator.";
-                if (success) commandChannel.sendMessage("Congrats, we got a new admin.").queue();
-                else commandChannel.sendMessage("I think that dude was already an admin.").queue();
+                ctx.setSuccess(dmp.addAdministrator(ctx.arg(1), ctx.arg(1)));
+                ctx.setReason("User already an administrator.");
+                if (ctx.isSuccess()) ctx.getChannel().sendMessage("Congrats, we got a new admin.").queue();
+                else ctx.getChannel().sendMessage("I think that dude was already an admin.").queue();
                 break;
             }
             case COMMAND_REMOVE_ADMIN: {
-                if (hasBadArgs(1, "Give me the user ID.")) break;
+                if (hasBadArgs(ctx, 1, "Give me the user ID.")) break;
                 if (!message.getAuthor().getId().equals(Statics.BOT_OWNER)) {
-                    commandChannel.sendMessage("Too bad, only the bot owner can touch this.").queue();
-                    success = false;
-                    reason = "User was not the bot owner.";
+                    ctx.getChannel().sendMessage("Too bad, only the bot owner can touch this.").queue();
+                    ctx.setSuccess(false);
+                    ctx.setReason("User was not the bot owner.");
                     break;
                 }
 
-                success = dmp.removeAdministrator(args[1]);
-                if (success) commandChannel.sendMessage("Haha, get owned loser.").queue();
-                else commandChannel.sendMessage("I don't think that was an admin.").queue();
+                ctx.setSuccess(dmp.removeAdministrator(ctx.arg(1)));
+                if (ctx.isSuccess()) ctx.getChannel().sendMessage("Haha, get owned loser.").queue();
+                else ctx.getChannel().sendMessage("I don't think that was an admin.").queue();
                 break;
             }
             case COMMAND_ADD_HELPER: {
-                if (hasBadArgs(1, "Give me the user ID")) break;
+                if (hasBadArgs(ctx, 1, "Give me the user ID")) break;
 
-                User newHelper = guild.getJDA().getUserById(args[1]);
+                User newHelper = guild.getJDA().getUserById(ctx.arg(1));
 
                 if (newHelper != null) {
-                    success = dmp.addHelper(args[1], args[1]);
-                    reason = "User already a helper.";
-                    if (success) commandChannel.sendMessage(newHelper.getName() + " better not go around breaking stuff now.").queue();
-                    else commandChannel.sendMessage("Wasn't this dude already a helper?").queue();
+                    ctx.setSuccess(dmp.addHelper(ctx.arg(1), ctx.arg(1)));
+                    ctx.setReason("User already a helper.");
+                    if (ctx.isSuccess()) ctx.getChannel().sendMessage(newHelper.getName() + " better not go around breaking stuff now.").queue();
+                    else ctx.getChannel().sendMessage("Wasn't this dude already a helper?").queue();
                 } else {
-                    success = false;
-                    reason = "User not found.";
-                    commandChannel.sendMessage("Who?").queue();
+                    ctx.setSuccess(false);
+                    ctx.setReason("User not found.");
+                    ctx.getChannel().sendMessage("Who?").queue();
                 }
                 break;
             }
             case COMMAND_REMOVE_HELPER: {
-                if (hasBadArgs(1, "Give me the user ID")) break;
+                if (hasBadArgs(ctx, 1, "Give me the user ID")) break;
 
-                User newHelper = guild.getJDA().getUserById(args[1]);
+                User newHelper = guild.getJDA().getUserById(ctx.arg(1));
 
-                success = dmp.removeHelper(args[1]);
-                reason = "User not a helper.";
-                if (success) {
-                    if (newHelper != null) commandChannel.sendMessage(newHelper.getAsMention() + " get owned nerd").queue();
-                    else commandChannel.sendMessage("Well, someone got demoted. No clue who, though.").queue();
-                } else commandChannel.sendMessage("This dude wasn't even a helper").queue();
+                ctx.setSuccess(dmp.removeHelper(ctx.arg(1)));
+                ctx.setReason("User not a helper.");
+                if (ctx.isSuccess()) {
+                    if (newHelper != null) ctx.getChannel().sendMessage(newHelper.getAsMention() + " get owned nerd").queue();
+                    else ctx.getChannel().sendMessage("Well, someone got demoted. No clue who, though.").queue();
+                } else ctx.getChannel().sendMessage("This dude wasn't even a helper").queue();
                 break;
             }
             case COMMAND_BLACKLIST_FROM_PUBLIC_COMMANDS: {
-                if (hasBadArgs(1, "Give me the ID of the dude.")) break;
+                if (hasBadArgs(ctx, 1, "Give me the ID of the dude.")) break;
 
-                Member member = guild.getMemberById(args[1]);
+                Member member = guild.getMemberById(ctx.arg(1));
 
                 if (member == null) {
                     System.out.println(CMD_HEADER + "Unable to find user by ID.");
-                    commandChannel.sendMessage("Can't find him, can't blacklist him.").queue();
-                    success = false;
-                    reason = "Member not found";
+                    ctx.getChannel().sendMessage("Can't find him, can't blacklist him.").queue();
+                    ctx.setSuccess(false);
+                    ctx.setReason("Member not found");
                     break;
                 }
-                if (dmp.addBlacklistedUser(args[1], args[1])) commandChannel.sendMessage("Already blacklisted, but ok.").queue();
-                else commandChannel.sendMessage("Blacklisted.").queue();
+                if (dmp.addBlacklistedUser(ctx.arg(1), ctx.arg(1))) ctx.getChannel().sendMessage("Already blacklisted, but ok.").queue();
+                else ctx.getChannel().sendMessage("Blacklisted.").queue();
 
-                success = true;
+                ctx.setSuccess(true);
                 break;
             }
             case COMMAND_WHITELIST_FROM_PUBLIC_COMMANDS: {
-                if (hasBadArgs(1, "Give me the ID of the dude.")) break;
+                if (hasBadArgs(ctx, 1, "Give me the ID of the dude.")) break;
 
-                Member member = guild.getMemberById(args[1]);
+                Member member = guild.getMemberById(ctx.arg(1));
                 if (member == null) {
                     System.out.println(CMD_HEADER + "Unable to find user by ID.");
-                    commandChannel.sendMessage("Can't find him, can't whitelist him.").queue();
-                    success = false;
-                    reason = "Member not found";
+                    ctx.getChannel().sendMessage("Can't find him, can't whitelist him.").queue();
+                    ctx.setSuccess(false);
+                    ctx.setReason("Member not found");
                     break;
                 }
-                if (dmp.removeBlacklistedUser(args[1])) commandChannel.sendMessage("Successfully whitelisted.").queue();
-                else commandChannel.sendMessage("Nothing to whitelist.").queue();
+                if (dmp.removeBlacklistedUser(ctx.arg(1))) ctx.getChannel().sendMessage("Successfully whitelisted.").queue();
+                else ctx.getChannel().sendMessage("Nothing to whitelist.").queue();
 
-                success = true;
+                ctx.setSuccess(true);
                 break;
             }
             case COMMAND_SCAN_USER_ROLES: {
-                if (hasBadArgs(0 ,"This command takes 0 arguments.")) break;
+                if (hasBadArgs(ctx, 0 ,"This command takes 0 arguments.")) break;
 
-                scanUsers();
-                commandChannel.sendMessage("Done!").queue();
-                success = true;
+                scanUsers(ctx);
+                ctx.getChannel().sendMessage("Done!").queue();
+                ctx.setSuccess(true);
                 break;
             }
             case COMMAND_SHOW_RESTORATOR_MEMBERS: {
-                if (hasBadArgs(0, "This command takes 0 arguments")) break;
+                if (hasBadArgs(ctx, 0, "This command takes 0 arguments")) break;
 
-                ShowRestoratorEntries();
-                success = true;
+                ShowRestoratorEntries(ctx);
+                ctx.setSuccess(true);
                 break;
             }
             case COMMAND_SHOW_RESTORATOR_MEMBER: {
-                if (hasBadArgs(1, "Give me the member ID.")) break;
+                if (hasBadArgs(ctx, 1, "Give me the member ID.")) break;
 
-                if (!dmp.getRestoratorMemberIDs().contains(args[1])) {
-                    success = false;
-                    reason = "Specified member not found on the restorator database.";
-                    commandChannel.sendMessage("That dude is not on my database. Perhaps you should do a safety scan?").queue();
+                long[] roleIDs = dmp.getRestoratorRoles(Snowflake.parse(ctx.arg(1)));
+                if (roleIDs == null) {
+                    ctx.setSuccess(false);
+                    ctx.setReason("Specified member not found on the restorator database.");
+                    ctx.getChannel().sendMessage("That dude is not on my database. Perhaps you should do a safety scan?").queue();
                     break;
                 }
                 StringBuilder sb = new StringBuilder();
-                Set<String> roleIDs = dmp.getRestoratorRoles(args[1]);
-                Member member = guild.getMemberById(args[1]);
-                if (member == null) sb.append("User ID ").append(args[1]);
+                Member member = guild.getMemberById(ctx.arg(1));
+                if (member == null) sb.append("User ID ").append(ctx.arg(1));
                 else sb.append(member.getEffectiveName());
-                sb.append(" has a total of ").append(roleIDs.size()).append(" roles saved. They are:\n");
-                for (String roleID : roleIDs) {
+                sb.append(" has a total of ").append(roleIDs.length).append(" roles saved. They are:\n");
+                for (long roleID : roleIDs) {
                     Role role = guild.getRoleById(roleID);
                     if (role == null) sb.append("- Some role that doesn't exist anymore (ID was ").append(roleID).append(")\n");
                     else sb.append("- ").append(role.getName()).append("\n");
                 }
 
-                commandChannel.sendMessage(sb.toString()).queue();
-                success = true;
+                ctx.getChannel().sendMessage(sb.toString()).queue();
+                ctx.setSuccess(true);
+                break;
+            }
+            case COMMAND_RESTORATOR_STATS: {
+                if (hasBadArgs(ctx, 0, "This command takes 0 arguments")) break;
+
+                ctx.getChannel().sendMessage("```\n" + dmp.getRestoratorFootprint() + "\n```").queue();
+                ctx.setSuccess(true);
                 break;
             }
             // Help
             case COMMAND_HELP: {
-                success = processHelp(message.getAuthor());
+                ctx.setSuccess(processHelp(ctx, message.getAuthor()));
                 break;
             }
             // Default
             default: {
-                commandChannel.sendMessage("What the hell did you intend me to do, because I understood none of that.").queue();
+                ctx.getChannel().sendMessage("What the hell did you intend me to do, because I understood none of that.").queue();
                 System.err.println(CMD_HEADER + "Invalid admin command code.");
-                success = false;
-                reason = "Invalid command code.";
+                ctx.setSuccess(false);
+                ctx.setReason("Invalid command code.");
                 break;
             }
         }
-        if (success) log("Admin command successfully executed.");
-        else log("Admin command failed. Reason: " + reason);
-        Arrays.fill(args, null);
-        return log;
+        if (ctx.isSuccess()) log(ctx, "Admin command successfully executed.");
+        else log(ctx, "Admin command failed. Reason: " + ctx.getReason());
+        return ctx;
     }
 
     private boolean helperCanExecute(String command) {
@@ -662,49 +697,49 @@ public class AdminCommandProcessor extends CommandProcessor {
 
     // Processing methods
 
-    private boolean processClean(String number) {
+    private boolean processClean(CommandContext ctx, String number) {
         // Error 3: Bad number
         try {
             if (Integer.parseInt(number) > 100 || Integer.parseInt(number)  < 1) {
-                commandChannel.sendMessage(
+                ctx.getChannel().sendMessage(
                         "Between 1 and 100 messages, please"
                 ).queue();
-                reason = "Expected number between 1 and 100, got" + Integer.parseInt(number) + ".";
+                ctx.setReason("Expected number between 1 and 100, got" + Integer.parseInt(number) + ".");
                 return false;
             }
         } catch (NumberFormatException n) {
-            commandChannel.sendMessage(
+            ctx.getChannel().sendMessage(
                     "Use a number, I can't read human runes"
             ).queue();
-            reason = "Unable to parse number \"" + number + "\".";
+            ctx.setReason("Unable to parse number \"" + number + "\".");
             return false;
         }
-        int num = deleteMessages((TextChannel) commandChannel, Integer.parseInt(number), null);
-        log("Deleted " + num + " message/s from channel #" + commandChannel.getName() + ".");
+        int num = deleteMessages((TextChannel) ctx.getChannel(), Integer.parseInt(number), null);
+        log(ctx, "Deleted " + num + " message/s from channel #" + ctx.getChannel().getName() + ".");
         return true;
     }
 
-    private boolean processPurge(String memberID, String channel, String startingMessage) {
+    private boolean processPurge(CommandContext ctx, String memberID, String channel, String startingMessage) {
 
         // Error 1: Bad channel
         if (guild.getTextChannelsByName(channel, true).size() == 0) {
-            commandChannel.sendMessage("That channel doesn't even exist, or at least I can't see it").queue();
-            reason = "Unable to find channel \"" + channel + "\".";
+            ctx.getChannel().sendMessage("That channel doesn't even exist, or at least I can't see it").queue();
+            ctx.setReason("Unable to find channel \"" + channel + "\".");
             return false;
         }
 
         // Error 2: Bad member
         if (guild.getMemberById(memberID) == null) {
-            commandChannel.sendMessage("That member is not visible to me.").queue();
-            reason = "Unable to find member with ID " + memberID + ".";
+            ctx.getChannel().sendMessage("That member is not visible to me.").queue();
+            ctx.setReason("Unable to find member with ID " + memberID + ".");
             return false;
         }
 
-        deleteFromMember(memberID, guild.getTextChannelsByName(channel, true).get(0), startingMessage);
+        deleteFromMember(ctx, memberID, guild.getTextChannelsByName(channel, true).get(0), startingMessage);
         return true;
     }
 
-    private boolean processBroadcast(String message) {
+    private boolean processBroadcast(CommandContext ctx, String message) {
         // Obtaining text channel categories
         Set<Category> categories = dmp.getTextChannelCategories()
                 .stream()
@@ -717,13 +752,13 @@ public class AdminCommandProcessor extends CommandProcessor {
                 .setTitle("Broadcast")
                 .setDescription(message)
                 .setTime(OffsetDateTime.now())
-                .setFooter(new MessageEmbed.Footer("BruhBot", commandChannel.getJDA().getSelfUser().getAvatarUrl(), null))
+                .setFooter(new MessageEmbed.Footer("BruhBot", ctx.getChannel().getJDA().getSelfUser().getAvatarUrl(), null))
                 .toEmbed();
         categories.forEach(ca -> ca.getTextChannels().forEach(ch -> ch.sendMessage(msg).queue()));
         return true;
     }
 
-    private boolean processHelp(User author) {
+    private boolean processHelp(CommandContext ctx, User author) {
         List<EmbedBuilder> embeds = new LinkedList<>();
         int fieldCount = 0;
         int i = 0;
@@ -731,8 +766,8 @@ public class AdminCommandProcessor extends CommandProcessor {
         do {
             builder = new EmbedBuilder();
             builder.setEmbedType(EmbedType.RICH)
-                    .setAuthorInfo(new MessageEmbed.AuthorInfo("Welcome to the admin zone.", null, commandChannel.getJDA().getSelfUser().getAvatarUrl(), null))
-                    .setFooter(new MessageEmbed.Footer("BruhBot", commandChannel.getJDA().getSelfUser().getAvatarUrl(), null))
+                    .setAuthorInfo(new MessageEmbed.AuthorInfo("Welcome to the admin zone.", null, ctx.getChannel().getJDA().getSelfUser().getAvatarUrl(), null))
+                    .setFooter(new MessageEmbed.Footer("BruhBot", ctx.getChannel().getJDA().getSelfUser().getAvatarUrl(), null))
                     .setTime(OffsetDateTime.now());
 
             for (; i != help_commands.length; i++) {
@@ -753,61 +788,37 @@ public class AdminCommandProcessor extends CommandProcessor {
         return true;
     }
 
-    private boolean processQuotes() throws URISyntaxException, IOException {
-        File fileToSend = new File(
-                GuildListener.class.getProtectionDomain().getCodeSource().getLocation()
-                        .toURI().getRawPath().replace("BruhBot-2.1.jar", "quotes.txt"));
-        fileToSend.createNewFile();
-        FileWriter fis = new FileWriter(fileToSend);
-
-        for (Quote quote : dmp.getQuotes()) {
-            fis
-                    .append('-')
-                    .append(quote.getNickname())
-                    .append(", ")
-                    .append(quote.getTime().toLocalDate().toString());
-            if (!quote.getAttachment().equals("")) fis.append("\nAlso included a file: ").append(quote.getAttachment());
-            fis
-                    .append("\n(")
-                    .append(quote.getId())
-                    .append(')');
-            try {
-                TextChannel tc = guild.getTextChannelById(quote.getChannel());
-                if (tc != null) {
-                    Message msg = tc.retrieveMessageById(quote.getId()).complete();
-                    fis.append('\n').append(msg.getContentRaw());
-                } else fis.append("\nText channel deleted.");
-            } catch (ErrorResponseException e) {
-                fis.append("\n(Message deleted)");
-            }
-            fis.append("\n\n");
+    /**
+     * <p>Runs a long command on the background pool, or tells the user to wait if the pool is busy.</p>
+     */
+    private boolean launch(CommandContext ctx, AdminCommandThread thread) {
+        try {
+            BACKGROUND.execute(thread);
+            return true;
+        } catch (RejectedExecutionException e) {
+            ctx.getChannel().sendMessage("I'm already busy with other long stuff, try again later.").queue();
+            ctx.setReason("Background pool full.");
+            return false;
         }
-        fis.flush();
-
-        commandChannel.sendMessage("Here's the file, I guess").queue();
-        commandChannel.sendFile(fileToSend).queue();
-
-        if (!fileToSend.delete()) System.out.println(CMD_HEADER + "Houston, we have a problem. The file hasn't been deleted.");
-        return true;
     }
 
-    private boolean processRolePurge(String roleId) {
+    private boolean processRolePurge(CommandContext ctx, String roleId) {
         Role role = guild.getRoleById(roleId);
         if (role == null) {
-            commandChannel.sendMessage("Bad role ID, that stuff doesn't exist.").queue();
-            reason = "Bad role ID.";
+            ctx.getChannel().sendMessage("Bad role ID, that stuff doesn't exist.").queue();
+            ctx.setReason("Bad role ID.");
             return false;
         } else {
             List<Member> members = guild.getMembers();
             members.stream().filter(m -> m.getRoles().contains(role)).forEach(m -> guild.removeRoleFromMember(m.getId(), role).complete());
-            commandChannel.sendMessage("Done.").queue();
+            ctx.getChannel().sendMessage("Done.").queue();
             return true;
         }
     }
 
     // "Show" methods
 
-    private void showAnswers() {
+    private void showAnswers(CommandContext ctx) {
         LinkedList<String> messages = new LinkedList<>();
         StringBuilder message = new StringBuilder("Answers:\n");
         for (String key : dmp.getAnswerTriggers()) {
@@ -830,10 +841,10 @@ public class AdminCommandProcessor extends CommandProcessor {
             message.append("None lmao");
         messages.add(message.toString());
 
-        for (String s : messages) commandChannel.sendMessage(s).queue();
+        for (String s : messages) ctx.getChannel().sendMessage(s).queue();
     }
 
-    private void showReactions() {
+    private void showReactions(CommandContext ctx) {
         LinkedList<String> messages = new LinkedList<>();
 
         StringBuilder message = new StringBuilder("Reactions (for now only IDs are printed):\n");
@@ -859,10 +870,10 @@ public class AdminCommandProcessor extends CommandProcessor {
         messages.add(message.toString());
 
         // Sending messages
-        for (String s : messages) commandChannel.sendMessage(s).queue();
+        for (String s : messages) ctx.getChannel().sendMessage(s).queue();
     }
 
-    private void showIdentifiers() {
+    private void showIdentifiers(CommandContext ctx) {
         LinkedList<String> messages = new LinkedList<>();
 
         StringBuilder message = new StringBuilder("Identifiers:\n");
@@ -887,10 +898,10 @@ public class AdminCommandProcessor extends CommandProcessor {
             message.append("None lmao");
         messages.add(message.toString());
 
-        for (String s : messages) commandChannel.sendMessage(s).queue();
+        for (String s : messages) ctx.getChannel().sendMessage(s).queue();
     }
 
-    private void showJSONObjects() {
+    private void showJSONObjects(CommandContext ctx) {
         LinkedList<String> messages = new LinkedList<>();
 
         StringBuilder message = new StringBuilder("Objects:\n");
@@ -915,10 +926,10 @@ public class AdminCommandProcessor extends CommandProcessor {
             message.append("None lmao");
         messages.add(message.toString());
 
-        for (String s : messages) commandChannel.sendMessage(s).queue();
+        for (String s : messages) ctx.getChannel().sendMessage(s).queue();
     }
 
-    private void showMembers() {
+    private void showMembers(CommandContext ctx) {
         LinkedList<String> messages = new LinkedList<>();
         StringBuilder message = new StringBuilder("-Members-\n");
         for (String key : dmp.getMemberNames()) {
@@ -945,7 +956,7 @@ public class AdminCommandProcessor extends CommandProcessor {
             message.append("None lmao");
         messages.add(message.toString());
 
-        for (String s : messages) commandChannel.sendMessage(s).queue();
+        for (String s : messages) ctx.getChannel().sendMessage(s).queue();
     }
 
     private int deleteMessages(TextChannel channel, int amount, Member member) {
@@ -969,9 +980,8 @@ public class AdminCommandProcessor extends CommandProcessor {
                 // Purge guard
                 if ((member != null) && ((msg.getMember() != member) // not sent by member
                         || (msg.getAttachments().isEmpty() // No pics
-                        && !msg.getContentRaw().matches(
-                        "(?s)(.*\\s?((https?://)|(www\\.)|(\\shttps?://www\\.)).*)" // No links
-                )))) {
+                        && !UrlScanner.containsUrl(msg.getContentRaw()) // No links
+                ))) {
                     if (iterator.hasNext()) iterator.remove();
                     continue;
                 }
@@ -997,7 +1007,7 @@ public class AdminCommandProcessor extends CommandProcessor {
         return messagesBulk.size() + messagesManual.size();
     }
 
-    private void deleteFromMember(String memberID, TextChannel channel, String startingPoint) {
+    private void deleteFromMember(CommandContext ctx, String memberID, TextChannel channel, String startingPoint) {
         String currentID = startingPoint;
         List<Message> memberMessages = new LinkedList<>();
         List<Message> history;
@@ -1009,25 +1019,27 @@ public class AdminCommandProcessor extends CommandProcessor {
             history.forEach(message -> {
                 if (message.getAuthor().getId().equals(memberID)) memberMessages.add(message);
                 if (memberMessages.size() != 0 && memberMessages.size() % 10 == 0)
-                    log("Retrieved " + memberMessages.size() + " messages.");
+                    log(ctx, "Retrieved " + memberMessages.size() + " messages.");
             });
         } while (history.size() < 100);
-        log("Retrieved a total of " + memberMessages.size() + " messages.");
+        log(ctx, "Retrieved a total of " + memberMessages.size() + " messages.");
         channel.purgeMessages(memberMessages);
     }
 
-    private void ShowRestoratorEntries() {
+    private void ShowRestoratorEntries(CommandContext ctx) {
         LinkedList<String> messages = new LinkedList<>();
 
-        StringBuilder message = new StringBuilder("Members(").append(dmp.getRestoratorMemberIDs().size()).append("):\n");
-        for (String memberID : dmp.getRestoratorMemberIDs()) {
+        long[] memberIDs = dmp.getRestoratorMemberIDs();
+        StringBuilder message = new StringBuilder("Members(").append(memberIDs.length).append("):\n");
+        for (long memberID : memberIDs) {
             StringBuilder subBuilder = new StringBuilder("- ");
-            Set<String> memberRoles = dmp.getRestoratorRoles(memberID);
+            long[] memberRoles = dmp.getRestoratorRoles(memberID);
+            if (memberRoles == null) continue;
             Member member = guild.getMemberById(memberID);
             if (member != null) subBuilder.append(member.getEffectiveName());
             else subBuilder.append("User ID ").append(memberID);
             subBuilder.append("\n");
-            for (String roleID : memberRoles) {
+            for (long roleID : memberRoles) {
                 Role role = guild.getRoleById(roleID);
                 if (role != null) subBuilder.append("\t- ").append(role.getName()).append("\n");
                 else subBuilder.append("\t- Deleted role, ID:").append(roleID).append("\n");
@@ -1044,20 +1056,20 @@ public class AdminCommandProcessor extends CommandProcessor {
         }
         messages.add(message.toString());
 
-        for (String s : messages) commandChannel.sendMessage(s).queue();
+        for (String s : messages) ctx.getChannel().sendMessage(s).queue();
     }
 
-    private void scanUsers() {
+    private void scanUsers(CommandContext ctx) {
         List<Member> members = guild.getMembers();
         for (Member member : members) {
-            if (!dmp.getRestoratorMemberIDs().contains(member.getId())) {
-                dmp.addRestoratorMember(member.getId());
-                log("Added member @" + member.getEffectiveName());
+            if (!dmp.isRestoratorMember(member.getIdLong())) {
+                dmp.addRestoratorMember(member.getIdLong());
+                log(ctx, "Added member @" + member.getEffectiveName());
             }
             for (Role role : member.getRoles()) {
-                if (!dmp.getRestoratorRoles(member.getId()).contains(role.getId())) {
-                    dmp.addToRestoratorMember(member.getId(), role.getId());
-                    log("Added role &" + role.getName() + " to member @" + member.getEffectiveName() + ".");
+                if (!dmp.hasRestoratorRole(member.getIdLong(), role.getIdLong())) {
+                    dmp.addToRestoratorMember(member.getIdLong(), role.getIdLong());
+                    log(ctx, "Added role &" + role.getName() + " to member @" + member.getEffectiveName() + ".");
                 }
             }
         }
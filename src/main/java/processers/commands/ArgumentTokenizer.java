@@ -0,0 +1,128 @@
+package processers.commands;
+
+import java.util.Arrays;
+
+/**
+ * <p>Splits a command into arguments without copying it.</p>
+ * Arguments are separated by any amount of spaces. An argument starting with {@code "} runs until the next unescaped
+ * {@code "} (or the end of the message), spaces included; inside it, {@code \"} stands for a literal quote. Every
+ * other backslash is kept as is, so regular expressions don't need double escaping. Arguments are stored as
+ * offset/length pairs over the original content, and only turned into strings when asked for.
+ */
+public class ArgumentTokenizer {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final String content;
+    private final int commandOffset;
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] ends = new int[INITIAL_CAPACITY];
+    // Set for quoted arguments containing escaped quotes, which can't be a plain substring of the content
+    private boolean[] escaped = new boolean[INITIAL_CAPACITY];
+    private boolean[] quoted = new boolean[INITIAL_CAPACITY];
+    private int count;
+
+    /**
+     * @param keyChars Prefix stripped from the first argument (the command name), if it starts with it.
+     */
+    public ArgumentTokenizer(String content, String keyChars) {
+        this.content = content;
+        tokenize();
+        this.commandOffset = count != 0 && content.startsWith(keyChars, starts[0]) ? keyChars.length() : 0;
+    }
+
+    /**
+     * @return The amount of arguments, including the command name
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return The command name, without the key characters
+     */
+    public String command() {
+        return count == 0 ? "" : content.substring(starts[0] + commandOffset, ends[0]);
+    }
+
+    /**
+     * @return The argument at the specified position (0 being the command name), or {@code null} if there isn't one
+     */
+    public String get(int index) {
+        if (index >= count) return null;
+        if (index == 0) return command();
+        String raw = content.substring(starts[index], ends[index]);
+        return escaped[index] ? raw.replace("\\\"", "\"") : raw;
+    }
+
+    /**
+     * @return Everything from the argument at the specified position to the end of the message, exactly as it was
+     * written, or {@code null} if there's no such argument. Meant for commands taking free text as their last argument.
+     */
+    public String rest(int index) {
+        if (index >= count) return null;
+        // Includes the opening quote of a quoted argument
+        return content.substring(quoted[index] ? starts[index] - 1 : starts[index]).trim();
+    }
+
+    /**
+     * @return {@code true} if the argument at the specified position is exactly {@code value}, without creating it
+     */
+    public boolean matches(int index, String value) {
+        if (index >= count) return false;
+        if (escaped[index]) return value.equals(get(index));
+        int start = index == 0 ? starts[0] + commandOffset : starts[index];
+        int length = ends[index] - start;
+        return length == value.length() && content.regionMatches(start, value, 0, length);
+    }
+
+    public int start(int index) {
+        return starts[index];
+    }
+
+    public int end(int index) {
+        return ends[index];
+    }
+
+    private void tokenize() {
+        int length = content.length();
+        int i = 0;
+        while (true) {
+            while (i < length && content.charAt(i) == ' ') i++;
+            if (i == length) return;
+
+            if (content.charAt(i) == '"') {
+                int start = ++i;
+                boolean hasEscapes = false;
+                while (i < length && content.charAt(i) != '"') {
+                    if (content.charAt(i) == '\\' && i + 1 < length && content.charAt(i + 1) == '"') {
+                        hasEscapes = true;
+                        i++;
+                    }
+                    i++;
+                }
+                add(start, i, true, hasEscapes);
+                // Skips the closing quote
+                if (i < length) i++;
+            } else {
+                int start = i;
+                while (i < length && content.charAt(i) != ' ') i++;
+                add(start, i, false, false);
+            }
+        }
+    }
+
+    private void add(int start, int end, boolean isQuoted, boolean hasEscapes) {
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+            quoted = Arrays.copyOf(quoted, count * 2);
+            escaped = Arrays.copyOf(escaped, count * 2);
+        }
+        starts[count] = start;
+        ends[count] = end;
+        quoted[count] = isQuoted;
+        escaped[count] = hasEscapes;
+        count++;
+    }
+}
@@ -0,0 +1,120 @@
+package processers.commands;
+
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.entities.User;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * <p>State of a single command invocation.</p>
+ * Holds the parsed arguments, the channel the command came from, its outcome and its log. A new context is created
+ * for every command, so processors can serve any amount of commands at the same time without sharing state.
+ */
+public class CommandContext {
+
+    private final Message message;
+    private final MessageChannel channel;
+    private final ArgumentTokenizer args;
+    private final String header;
+
+    private boolean success;
+    private boolean refused;
+    private String reason;
+    private final StringBuilder log = new StringBuilder();
+
+    CommandContext(Message message, String keyChars, String header) {
+        this.message = message;
+        this.channel = message.getChannel();
+        this.args = new ArgumentTokenizer(message.getContentRaw().trim(), keyChars);
+        this.header = header;
+    }
+
+    public Message getMessage() {
+        return message;
+    }
+
+    public MessageChannel getChannel() {
+        return channel;
+    }
+
+    public User getAuthor() {
+        return message.getAuthor();
+    }
+
+    /**
+     * @return The command name (the first word without the key characters)
+     */
+    public String getCommand() {
+        return args.command();
+    }
+
+    /**
+     * @return The argument at the specified position (0 being the command name), or {@code null} if there isn't one
+     */
+    public String arg(int index) {
+        return args.get(index);
+    }
+
+    /**
+     * @return Everything from the argument at the specified position to the end of the message, as written, or
+     * {@code null} if there isn't such an argument
+     */
+    public String rest(int index) {
+        return args.rest(index);
+    }
+
+    /**
+     * @return The amount of arguments, not counting the command name
+     */
+    public int getArgCount() {
+        return Math.max(0, args.size() - 1);
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    /**
+     * <p>Marks the command as deliberately not executed (blacklisted user, cooldown...). A refused command isn't a
+     * success, but it isn't an error worth reporting either.</p>
+     */
+    public void refuse(String reason) {
+        this.success = false;
+        this.refused = true;
+        this.reason = reason;
+    }
+
+    public boolean isRefused() {
+        return refused;
+    }
+
+    /**
+     * @return {@code true} if the command either succeeded or was deliberately refused
+     */
+    public boolean isHandled() {
+        return success || refused;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    public String getLog() {
+        return log.toString();
+    }
+
+    public void log(String s) {
+        log.append("[").append(LocalTime.now().format(DateTimeFormatter.ofPattern("HH:mm"))).append("]").append(header).append(s).append("\n");
+        System.out.println(header + s);
+    }
+}
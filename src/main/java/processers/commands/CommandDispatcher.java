@@ -0,0 +1,164 @@
+package processers.commands;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Runs commands on a worker pool instead of the JDA event thread.</p>
+ * Commands sent to the same channel run one after the other, in the order they were dispatched. Commands from
+ * different channels run in parallel. Each guild has a bound on how many commands can be waiting at once, and a
+ * command running for longer than the timeout gets its worker interrupted.
+ */
+public class CommandDispatcher {
+
+    private static final String CMD_HEADER = "(DISPATCH) ";
+    // Commands a channel may run in a row before giving its worker up to the other channels
+    private static final int LANE_BATCH = 16;
+
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService watchdog;
+    private final Map<Long, Lane> lanes = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicInteger> pendingPerGuild = new ConcurrentHashMap<>();
+    private final int maxPendingPerGuild;
+    private final long timeoutMillis;
+
+    /**
+     * @param threads            Amount of worker threads.
+     * @param maxPendingPerGuild Maximum amount of queued or running commands per guild.
+     * @param timeout            Maximum time a single command may run before being interrupted.
+     * @param unit               Unit of {@code timeout}.
+     */
+    public CommandDispatcher(int threads, int maxPendingPerGuild, long timeout, TimeUnit unit) {
+        AtomicInteger workerCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "command-worker-" + workerCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "command-watchdog");
+            t.setDaemon(true);
+            return t;
+        });
+        this.maxPendingPerGuild = maxPendingPerGuild;
+        this.timeoutMillis = unit.toMillis(timeout);
+    }
+
+    /**
+     * @return {@code true} if the command was queued, {@code false} if the guild already has too many pending commands
+     */
+    public boolean dispatch(long guildID, long channelID, Runnable command) {
+        AtomicInteger pending = pendingPerGuild.computeIfAbsent(guildID, id -> new AtomicInteger());
+        if (pending.incrementAndGet() > maxPendingPerGuild) {
+            pending.decrementAndGet();
+            System.err.println(CMD_HEADER + "WARNING: Guild " + guildID + " has too many pending commands, rejecting.");
+            return false;
+        }
+        Runnable task = () -> {
+            try {
+                runWithTimeout(command);
+            } finally {
+                pending.decrementAndGet();
+            }
+        };
+        Lane lane = lanes.computeIfAbsent(channelID, Lane::new);
+        while (!lane.add(task)) {
+            // The lane just ran dry and retired, a fresh one takes its place
+            lanes.remove(channelID, lane);
+            lane = lanes.computeIfAbsent(channelID, Lane::new);
+        }
+        return true;
+    }
+
+    public int getPendingCommands(long guildID) {
+        AtomicInteger pending = pendingPerGuild.get(guildID);
+        return pending == null ? 0 : pending.get();
+    }
+
+    public void shutdown() {
+        workers.shutdown();
+        watchdog.shutdownNow();
+    }
+
+    private void runWithTimeout(Runnable command) {
+        Thread worker = Thread.currentThread();
+        // Guards against interrupting the worker after it already moved on to the next command
+        Object token = new Object();
+        boolean[] done = {false};
+        ScheduledFuture<?> timeout = watchdog.schedule(() -> {
+            synchronized (token) {
+                if (done[0]) return;
+                System.err.println(CMD_HEADER + "WARNING: Command took longer than " + timeoutMillis + "ms, interrupting " + worker.getName() + ".");
+                worker.interrupt();
+            }
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+        try {
+            command.run();
+        } catch (Throwable e) {
+            // Errors too, so a failing command never leaves its lane stuck as scheduled
+            System.err.println(CMD_HEADER + "ERROR: Command threw an exception. Trace below:");
+            e.printStackTrace();
+        } finally {
+            synchronized (token) {
+                done[0] = true;
+            }
+            timeout.cancel(false);
+            // Clears a possible interrupt so it doesn't leak into the next command
+            Thread.interrupted();
+        }
+    }
+
+    /**
+     * <p>Ordered queue of commands for a single channel. At most one worker drains it at any given time.</p>
+     * Once drained, the lane retires and leaves the map, so idle channels don't keep a lane around. A retired lane
+     * refuses new commands, which then go to a new lane for the channel.
+     */
+    private class Lane implements Runnable {
+
+        private final long channelID;
+        private final Queue<Runnable> queue = new ArrayDeque<>();
+        private boolean scheduled;
+        private boolean retired;
+
+        Lane(long channelID) {
+            this.channelID = channelID;
+        }
+
+        /**
+         * @return {@code true} if the command was queued, {@code false} if the lane is retired
+         */
+        synchronized boolean add(Runnable command) {
+            if (retired) return false;
+            queue.add(command);
+            if (!scheduled) {
+                scheduled = true;
+                workers.execute(this);
+            }
+            return true;
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i != LANE_BATCH; i++) {
+                Runnable command;
+                synchronized (this) {
+                    command = queue.poll();
+                    if (command == null) {
+                        scheduled = false;
+                        retired = true;
+                    }
+                }
+                if (command == null) {
+                    lanes.remove(channelID, this);
+                    return;
+                }
+                command.run();
+            }
+            // Still has work, goes to the back of the line
+            workers.execute(this);
+        }
+    }
+}
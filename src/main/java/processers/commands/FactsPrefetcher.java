@@ -0,0 +1,229 @@
+package processers.commands;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.entities.TextChannel;
+import net.dv8tion.jda.api.exceptions.ErrorResponseException;
+import net.dv8tion.jda.api.requests.ErrorResponse;
+import processers.persistence.DataManagementProcessor;
+import util.ImageProbe;
+import util.LinkClassifier;
+import util.Quote;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Keeps a small pool of quotes ready to be shown, so {@code facts} doesn't wait on Discord.</p>
+ * Quotes are picked at random, their messages retrieved asynchronously, and the size of their first image link probed,
+ * all in the background. Quotes whose message or channel is gone are removed from the database on the way, while the
+ * ones that failed for any other reason are only skipped. Every time a fact is taken, the pool is topped up again.
+ */
+public class FactsPrefetcher {
+
+    private static final String CMD_HEADER = "(FACTS) ";
+    // Quotes found broken in a row before giving up on a refill, in case most of the database is gone
+    private static final int MAX_CONSECUTIVE_FAILURES = 10;
+
+    // Image probing and message retrieval callbacks, shared by every guild
+    private static final ExecutorService PREPARERS = Executors.newFixedThreadPool(2, new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "facts-prefetch-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    /**
+     * <p>A quote with everything needed to show it already resolved.</p>
+     */
+    public static final class Fact {
+        private final Message message;
+        private final String description;
+        private final MessageEmbed.ImageInfo image;
+        private final List<String> unembeddable;
+        private final List<String> otherAttachments;
+
+        private Fact(Message message, String description, MessageEmbed.ImageInfo image, List<String> unembeddable, List<String> otherAttachments) {
+            this.message = message;
+            this.description = description;
+            this.image = image;
+            this.unembeddable = unembeddable;
+            this.otherAttachments = otherAttachments;
+        }
+
+        public Message getMessage() {
+            return message;
+        }
+
+        /**
+         * @return The content of the message, without the media links
+         */
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * @return The image to embed, or {@code null} if there's none
+         */
+        public MessageEmbed.ImageInfo getImage() {
+            return image;
+        }
+
+        /**
+         * @return Media links and attachments that can't be embedded, and have to be sent as plain links
+         */
+        public List<String> getUnembeddable() {
+            return unembeddable;
+        }
+
+        /**
+         * @return URLs of the attachments that aren't media
+         */
+        public List<String> getOtherAttachments() {
+            return otherAttachments;
+        }
+    }
+
+    private final Guild guild;
+    private final DataManagementProcessor dmp;
+    private final ImageProbe imageProbe;
+    private final int poolSize;
+    private final BlockingQueue<Fact> ready;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final Random random = new Random();
+
+    /**
+     * @param poolSize Amount of facts kept ready.
+     */
+    public FactsPrefetcher(Guild guild, DataManagementProcessor dmp, ImageProbe imageProbe, int poolSize) {
+        this.guild = guild;
+        this.dmp = dmp;
+        this.imageProbe = imageProbe;
+        this.poolSize = poolSize;
+        this.ready = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    /**
+     * <p>Takes a fact from the pool, or resolves one on the spot if the pool is empty.</p>
+     *
+     * @return The fact, or a future completed with {@code null} if every remaining quote was broken
+     */
+    public CompletableFuture<Fact> next() {
+        Fact fact;
+        while ((fact = ready.poll()) != null) {
+            // The quote may have been removed while waiting in the pool
+            if (dmp.getQuote(fact.getMessage().getId()) != null) break;
+        }
+        CompletableFuture<Fact> result = fact != null ? CompletableFuture.completedFuture(fact) : fetch(0);
+        refill();
+        return result;
+    }
+
+    /**
+     * <p>Starts resolving quotes until the pool is full.</p>
+     */
+    public void refill() {
+        while (true) {
+            int current = inFlight.get();
+            if (ready.size() + current >= poolSize || consecutiveFailures.get() >= MAX_CONSECUTIVE_FAILURES) return;
+            if (dmp.getQuoteCount() == 0) return;
+            if (!inFlight.compareAndSet(current, current + 1)) continue;
+            fetch(0).whenComplete((fact, e) -> {
+                inFlight.decrementAndGet();
+                if (fact == null) return;
+                if (ready.offer(fact)) refill();
+            });
+        }
+    }
+
+    public int getReadyCount() {
+        return ready.size();
+    }
+
+    /**
+     * @return A future completed with a resolved random quote, or with {@code null} if too many were broken in a row
+     */
+    private CompletableFuture<Fact> fetch(int failures) {
+        Quote q = dmp.getRandomQuote(random.nextLong());
+        if (q == null || failures >= MAX_CONSECUTIVE_FAILURES) {
+            if (q != null) {
+                consecutiveFailures.set(failures);
+                System.err.println(CMD_HEADER + "WARNING: " + failures + " broken quotes in a row, pausing the refills.");
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+        TextChannel channel = guild.getTextChannelById(q.getChannel());
+        if (channel == null) return broken(q, failures, "Channel not found");
+
+        return channel.retrieveMessageById(q.getId()).submit()
+                .thenApplyAsync(this::prepare, PREPARERS)
+                .handle((fact, e) -> e == null
+                        ? CompletableFuture.completedFuture(fact)
+                        : failed(q, failures, e instanceof CompletionException && e.getCause() != null ? e.getCause() : e))
+                .thenCompose(f -> f);
+    }
+
+    /**
+     * <p>Only removes the quote if Discord says its message or channel is gone, as anything else may be temporary.</p>
+     */
+    private CompletableFuture<Fact> failed(Quote q, int failures, Throwable e) {
+        if (e instanceof ErrorResponseException) {
+            ErrorResponse response = ((ErrorResponseException) e).getErrorResponse();
+            if (response == ErrorResponse.UNKNOWN_MESSAGE || response == ErrorResponse.UNKNOWN_CHANNEL)
+                return broken(q, failures, e.getMessage());
+        }
+        System.err.println(CMD_HEADER + "WARNING: Unable to retrieve quote " + q.getId() + ", skipping it: " + e);
+        return fetch(failures + 1);
+    }
+
+    private CompletableFuture<Fact> broken(Quote q, int failures, String reason) {
+        System.out.println(CMD_HEADER + "Removing broken quote " + q.getId() + ": " + reason);
+        dmp.removeQuote(q.getId());
+        return fetch(failures + 1);
+    }
+
+    /**
+     * <p>Sorts the links and attachments of the message, and probes the size of the first image link.</p>
+     */
+    private Fact prepare(Message m) {
+        String description = m.getContentRaw();
+        MessageEmbed.ImageInfo image = null;
+        List<String> unembeddable = new ArrayList<>(0);
+        List<String> otherAttachments = new ArrayList<>(0);
+
+        for (LinkClassifier.Link link : LinkClassifier.findLinks(m.getContentRaw())) {
+            if (!link.isMedia()) continue;
+            String url = link.getUrl();
+            description = description.replace(url, "");
+            if (link.getType() == LinkClassifier.MediaType.IMAGE && image == null) {
+                try {
+                    ImageProbe.Dimensions size = imageProbe.probe(url);
+                    image = new MessageEmbed.ImageInfo(url, null, size.getWidth(), size.getHeight());
+                } catch (IOException | RuntimeException e) {
+                    System.err.println(CMD_HEADER + "ERROR: Unable to read image from URL " + url + ", sending it as a link. Trace below:");
+                    e.printStackTrace();
+                    unembeddable.add(url);
+                }
+            } else unembeddable.add(url);
+        }
+
+        for (Message.Attachment a : m.getAttachments()) {
+            if (a.isImage()) image = new MessageEmbed.ImageInfo(a.getUrl(), a.getProxyUrl(), a.getWidth(), a.getHeight());
+            else if (a.isVideo()) unembeddable.add(a.getUrl());
+            else otherAttachments.add(a.getUrl());
+        }
+        consecutiveFailures.set(0);
+        return new Fact(m, description, image, Collections.unmodifiableList(unembeddable), Collections.unmodifiableList(otherAttachments));
+    }
+}
@@ -5,23 +5,28 @@ import net.dv8tion.jda.api.entities.*;
 import processers.GuildListener;
 import processers.persistence.DataManagementProcessor;
 import util.EmbedBuilder;
-import util.Pair;
+import util.ImageProbe;
 import util.Quote;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.net.URL;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Arrays;
 import java.util.Objects;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class PublicCommandProcessor extends CommandProcessor {
 
     private static final long FACTS_COOLDOWN = 5000;
     private static final long QUOTETHIS_COOLDOWN = 10000;
+    private static final String HELP_THUMBNAIL = "https://i.redd.it/6p3meftgsik41.jpg";
+    // Shared by every guild, quotes get posted over and over
+    private static final ImageProbe IMAGE_PROBE = new ImageProbe(1024, 6, TimeUnit.HOURS);
+    private static final int FACTS_POOL_SIZE = 5;
+    // Only reached when the pool ran dry and a quote has to be resolved on the spot
+    private static final long FACTS_TIMEOUT_SECONDS = 15;
 
     /* TODO Commands to implement:
     command_coinflip
@@ -42,7 +47,7 @@ public class PublicCommandProcessor extends CommandProcessor {
             keyChars + COMMAND_REMINDME + " \"message\" <time>",
             keyChars + COMMAND_COIN_FLIP,
             keyChars + COMMAND_8BALL + " \"question\"",
-            keyChars + COMMAND_CHOOSE + "\"option 1\" \"option 2\" ... (Up to 9 options)",
+            keyChars + COMMAND_CHOOSE + " \"option 1\" \"option 2\" ...",
     };
     private final String[] help_descriptions = {
             "Quotes the last message sent.",
@@ -69,46 +74,50 @@ public class PublicCommandProcessor extends CommandProcessor {
             "kys on the spot"
     };
 
+    private final FactsPrefetcher facts;
+
     public PublicCommandProcessor(String keyChars, Guild guild, DataManagementProcessor dmp) {
         super(guild, keyChars, dmp, "(PCP) ");
+        this.facts = new FactsPrefetcher(guild, dmp, IMAGE_PROBE, FACTS_POOL_SIZE);
+        // Created once the guild is ready, so the pool can start filling right away
+        facts.refill();
     }
 
     @Override
-    public String processCommand(Message message) {
-        super.processCommand(message);
+    public CommandContext processCommand(Message message) {
+        CommandContext ctx = super.processCommand(message);
 
         // Blacklist guard
-        if (dmp.getBlacklistedUsers().contains(message.getAuthor().getId())) {
-            log("Command failed. Reason: user is blacklisted.");
-            commandChannel.sendMessage("You're black").queue();
-            return log;
+        if (dmp.isBlacklistedUser(message.getAuthor().getIdLong())) {
+            log(ctx, "Command failed. Reason: user is blacklisted.");
+            ctx.getChannel().sendMessage("You're black").queue();
+            ctx.refuse("User is blacklisted.");
+            return ctx;
         }
 
-        switch(args[0]) {
+        switch(ctx.getCommand()) {
             case COMMAND_QUOTE: {
 
                 // Cooldown check
-                if (hasCooldown(message.getAuthor(), QUOTETHIS_COOLDOWN)) break;
+                if (hasCooldown(ctx, message.getAuthor(), QUOTETHIS_COOLDOWN)) break;
 
                 // Obtaining the quoted message
-                MessageHistory history = commandChannel.getHistory();
+                MessageHistory history = ctx.getChannel().getHistory();
                 // This might not work well with spam? It'd be better to add a check "if (get(0) == message)"
                 Message quote = history.retrievePast(2).complete().get(1);
 
                 // Bot check
                 if (quote.getAuthor().isBot()) {
-                    commandChannel.sendMessage("No quoting bots").queue();
-                    success = false;
-                    reason = "User attempted to quote a bot.";
+                    ctx.getChannel().sendMessage("No quoting bots").queue();
+                    ctx.refuse("User attempted to quote a bot.");
                     break;
                 }
 
                 // Guard against bad people
                 if (quote.getContentRaw().matches("(.* )?@.+( .*)?") ||
                     quote.getContentRaw().matches("(.* )?<@(.+)>( .*)?")) {
-                    commandChannel.sendMessage("Nice try").queue();
-                    success = false;
-                    reason = "User attempted to quote a ping.";
+                    ctx.getChannel().sendMessage("Nice try").queue();
+                    ctx.refuse("User attempted to quote a ping.");
                     break;
                 }
                 String attachment = "";
@@ -119,166 +128,133 @@ public class PublicCommandProcessor extends CommandProcessor {
                 Quote quote1;
                 try {
                     quote1 = new Quote(
-                            commandChannel.getId(),
+                            ctx.getChannel().getId(),
                             attachment,
                             Objects.requireNonNull(quote.getMember(), "Member not found!").getEffectiveName(),
                             quote.getTimeCreated(),
-                            quote.getId());
+                            quote.getId())
+                            .withContent(quote.getContentRaw());
                 } catch (NullPointerException e) {
                     System.err.println(CMD_HEADER + "WARNING: Member not found. Unable to retrieve nickname information.");
                     quote1 = new Quote(
-                            commandChannel.getId(),
+                            ctx.getChannel().getId(),
                             attachment,
                             "Anonymous",
                             quote.getTimeCreated(),
-                            quote.getId());
+                            quote.getId())
+                            .withContent(quote.getContentRaw());
                 }
                 dmp.addQuote(quote1);
                 addCooldown(message.getAuthor(), System.currentTimeMillis());
                 int random = new Random(message.getIdLong()).nextInt(quoteMessages.length);
-                commandChannel.sendMessage(quoteMessages[random]).queue();
-                success = true;
+                ctx.getChannel().sendMessage(quoteMessages[random]).queue();
+                ctx.setSuccess(true);
                 break;
             }
             case COMMAND_FACTS: {
                 // Cooldown check
-                if (!message.getAuthor().getId().equals("265904613687820288") && hasCooldown(message.getAuthor(), FACTS_COOLDOWN)) break;
+                if (!dmp.isBotOwner(message.getAuthor().getIdLong()) && hasCooldown(ctx, message.getAuthor(), FACTS_COOLDOWN)) break;
 
                 // Fact availability check
-                if (dmp.getQuotes().size() == 0) {
-                    commandChannel.sendMessage("No facts chief").queue();
-                    success = false;
-                    reason = "No facts available.";
+                if (dmp.getQuoteCount() == 0) {
+                    ctx.getChannel().sendMessage("No facts chief").queue();
+                    ctx.setSuccess(false);
+                    ctx.setReason("No facts available.");
                     break;
                 }
 
-                // Obtaining a random fact (deleting possible broken facts)
-                Quote q;
-                Message m;
-                while(true) {
-                    q = dmp.getRandomQuote(message.getIdLong());
-                    try { // Attempt to obtain a message
-                        m = Objects.requireNonNull(guild.getTextChannelById(q.getChannel()), "Channel not found!")
-                                .retrieveMessageById(q.getId()).complete();
-                        break;
-                    } catch (Exception e) { // If anything goes wrong, deletes the quote and tries again
-                        dmp.removeQuote(q.getId());
-                    }
+                // Obtaining a random fact, usually already resolved by the prefetcher
+                FactsPrefetcher.Fact fact;
+                try {
+                    fact = facts.next().get(FACTS_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (ExecutionException | TimeoutException e) {
+                    ctx.getChannel().sendMessage("Discord is taking too long, try again in a bit").queue();
+                    ctx.setSuccess(false);
+                    ctx.setReason("Unable to resolve a fact in time (" + e + ").");
+                    break;
+                }
+                if (fact == null) {
+                    ctx.getChannel().sendMessage("No facts chief").queue();
+                    ctx.setSuccess(false);
+                    ctx.setReason("Every remaining fact was broken.");
+                    break;
                 }
-                StringBuilder FailedEmbeds = new StringBuilder();
+                log(ctx, "Fact " + fact.getMessage().getId() + " taken, " + facts.getReadyCount() + " left ready.");
+                Message m = fact.getMessage();
                 EmbedBuilder builder = new EmbedBuilder()
                         .addField(new MessageEmbed.Field("ID", m.getId(), true))
                         .setEmbedType(EmbedType.RICH)
-                        .setDescription(m.getContentRaw())
+                        .setDescription(fact.getDescription())
                         .setTime(OffsetDateTime.now())
                         .setFooter(new MessageEmbed.Footer("\"" + mockQuotes[new Random(m.getIdLong()).nextInt(mockQuotes.length)] + "\"", m.getJDA().getSelfUser().getAvatarUrl(), null))
                         .setAuthorInfo(new MessageEmbed.AuthorInfo("Sent by " + m.getAuthor().getName() + " on " + m.getTimeCreated().format(DateTimeFormatter.ofPattern("LLL dd, yyyy")), null, m.getAuthor().getAvatarUrl(), null));
-
-                // Handling links in the message
-                Pair<String, Boolean> pair = getLink(m.getContentRaw()); // If there's an unknown link, it just doesn't get detected.
-                if (pair != null) {
-                    String url = pair.first();
-                    builder.setDescription(m.getContentRaw().replace(url, ""));
-                    if (pair.second()) {
-                        log("Image URL found.");
-                        try {
-                            BufferedImage bi = ImageIO.read(new URL(url));
-                            builder.setEmbedType(EmbedType.IMAGE)
-                                    .setImage(new MessageEmbed.ImageInfo(url, null, bi.getWidth(), bi.getHeight()));
-                        } catch (IOException e) {
-                            log("Unable to read image from URL.");
-                            System.err.println(CMD_HEADER + "ERROR: Unable to read image from URL. Stopping attempts to embed. Trace below:");
-                            e.printStackTrace();
-                            FailedEmbeds.append(url).append(" ");
-                        } catch (ArrayIndexOutOfBoundsException e) {
-                            log("Strange GIF error occurred.");
-                            System.err.println(CMD_HEADER + "Strange GIF error occurred. Stopping attempts to embed. You should probably tell the bot owner. Trace below:");
-                            e.printStackTrace();
-                            FailedEmbeds.append(url).append(" ");
-                        } catch (Exception e) {
-                            log("Unknown error.");
-                            System.err.println(CMD_HEADER + "Unknown error. Stopping attempts to embed. You should probably tell the bot owner. Trace below:");
-                            e.printStackTrace();
-                            FailedEmbeds.append(url).append(" ");
-                        }
-                    } else {
-                        log("Video URL found.");
-                        FailedEmbeds.append(url);
-                    }
-                }
-
-                // Handling attachments
-                if (m.getAttachments().size() != 0) for (Message.Attachment a : m.getAttachments()) {
-                    if (a.isImage()) {
-                        log("Image attachment found.");
-                        builder
-                                .setEmbedType(EmbedType.IMAGE)
-                                .setImage(new MessageEmbed.ImageInfo(a.getUrl(), a.getProxyUrl(), a.getWidth(), a.getHeight()));
-                    } else if (a.isVideo()) {
-                        log("Video attachment found.");
-                        FailedEmbeds.append("\n").append(a.getUrl());
-                    } else {
-                        log("Unknown attachment found.");
-                        builder.addField(new MessageEmbed.Field("Attachment", a.getUrl(), true));
-                    }
-                }
+                if (fact.getImage() != null) builder.setEmbedType(EmbedType.IMAGE).setImage(fact.getImage());
+                for (String url : fact.getOtherAttachments()) builder.addField(new MessageEmbed.Field("Attachment", url, true));
+                String FailedEmbeds = String.join(" ", fact.getUnembeddable());
 
                 // Video embed second message
                 if (FailedEmbeds.length() != 0) {
-                    commandChannel.sendMessage(FailedEmbeds.toString()).queue();
+                    ctx.getChannel().sendMessage(FailedEmbeds).queue();
                 }
-                commandChannel.sendMessage(builder.toEmbed()).queue();
+                ctx.getChannel().sendMessage(builder.toEmbed()).queue();
 
                 addCooldown(message.getAuthor(), System.currentTimeMillis());
-                success = true;
+                ctx.setSuccess(true);
                 break;
             }
             case COMMAND_REMINDME: {
-                if (hasBadArgs(2, "Give me the message, and a time to remind you in format \"?d?h?m?s\".")) break;
+                if (hasBadArgs(ctx, 2, "Give me the message, and a time to remind you in format \"?d?h?m?s\".")) break;
 
                 // Time formatting
                 try {
-                    long totalTime = getTotalTime(args[2]);
+                    long totalTime = getTotalTime(ctx.arg(2));
 
                     // Event creation
                     ReminderTimerEvent rte = new ReminderTimerEvent(
                             totalTime,
-                            new Random(message.getIdLong()).nextInt(),
+                            message.getIdLong(),
                             message.getAuthor().getId(),
                             guild.getId(),
                             message.getId(),
-                            args[1]
+                            ctx.arg(1)
                     );
-                    log("Reminder saved, seconds until execution = " + rte.getDelay() + ".");
-                    GuildListener.callBuffer.queue(1, rte);
-                    success = true;
-                    commandChannel.sendMessage("Saved").queue();
+                    if (!GuildListener.callBuffer.offer(1, rte)) {
+                        ctx.getChannel().sendMessage("Too many reminders at once, try again in a bit").queue();
+                        ctx.setSuccess(false);
+                        ctx.setReason("Call buffer full (" + GuildListener.callBuffer + ").");
+                        break;
+                    }
+                    log(ctx, "Reminder saved, seconds until execution = " + rte.getDelay() + ".");
+                    ctx.setSuccess(true);
+                    ctx.getChannel().sendMessage("Saved").queue();
                 } catch (NumberFormatException e) {
-                    commandChannel.sendMessage("Calm down man, I'm not going to exist for that long").queue();
-                    success = false;
-                    reason = "Unable to parse time.";
+                    ctx.getChannel().sendMessage("Calm down man, I'm not going to exist for that long").queue();
+                    ctx.setSuccess(false);
+                    ctx.setReason("Unable to parse time.");
                 }
 
                 break;
             }
             case COMMAND_COIN_FLIP: {
-                if (hasBadArgs(0, "This command takes 0 arguments.")) break;
+                if (hasBadArgs(ctx, 0, "This command takes 0 arguments.")) break;
 
-                if (new Random(message.getIdLong()).nextBoolean()) commandChannel.sendMessage("Looks like tails to me").queue();
-                else commandChannel.sendMessage("That's going to be heads").queue();
-                success = true;
+                if (new Random(message.getIdLong()).nextBoolean()) ctx.getChannel().sendMessage("Looks like tails to me").queue();
+                else ctx.getChannel().sendMessage("That's going to be heads").queue();
+                ctx.setSuccess(true);
                 break;
             }
             case COMMAND_CHOOSE: {
-                // TODO implement choose command
-                commandChannel.sendMessage("Ping the bot owner, this command isn't implemented yet").queue();
-                success = false;
-                reason = "Command not implemented yet";
+                if (hasTooFewArgs(ctx, 2, "Give me at least two options.")) break;
+                ctx.getChannel().sendMessage("I choose " + ctx.arg(1 + new Random(message.getIdLong()).nextInt(ctx.getArgCount()))).queue();
+                ctx.setSuccess(true);
                 break;
             }
             case COMMAND_8BALL: {
-                // TODO replace argument check with (args > 1). Nobody cares about the argument anyway
-                if (hasBadArgs(1, "Give me something to answer")) break;
+                // The question can go unquoted, nobody cares about it anyway
+                if (hasTooFewArgs(ctx, 1, "Give me something to answer")) break;
                 String prediction;
                 switch (new Random(message.getIdLong()).nextInt(10)) {
                     case 0:
@@ -314,41 +290,40 @@ public class PublicCommandProcessor extends CommandProcessor {
                     default:
                         prediction = "????????????";
                 }
-                commandChannel.sendMessage(prediction).queue();
-                success = true;
+                ctx.getChannel().sendMessage(prediction).queue();
+                ctx.setSuccess(true);
                 break;
             }
             case COMMAND_HELP: {
                 // TODO change for 25+ fields (basically copy-paste the one in AdminCommandProcessor)
                 EmbedBuilder builder = new EmbedBuilder();
                 try {
-                    BufferedImage bi = ImageIO.read(new URL("https://i.redd.it/6p3meftgsik41.jpg"));
-                    builder.setThumbnail(new MessageEmbed.Thumbnail("https://i.redd.it/6p3meftgsik41.jpg", null, bi.getWidth(), bi.getHeight()));
+                    ImageProbe.Dimensions size = IMAGE_PROBE.probe(HELP_THUMBNAIL);
+                    builder.setThumbnail(new MessageEmbed.Thumbnail(HELP_THUMBNAIL, null, size.getWidth(), size.getHeight()));
                 } catch (IOException ignored) { }
                 builder.setEmbedType(EmbedType.RICH)
-                        .setAuthorInfo(new MessageEmbed.AuthorInfo("This dude unironically doesn't know the commands", null, commandChannel.getJDA().getSelfUser().getAvatarUrl(), null))
+                        .setAuthorInfo(new MessageEmbed.AuthorInfo("This dude unironically doesn't know the commands", null, ctx.getChannel().getJDA().getSelfUser().getAvatarUrl(), null))
                         .setTitle("User commands")
-                        .setFooter(new MessageEmbed.Footer("BruhBot", commandChannel.getJDA().getSelfUser().getAvatarUrl(), null))
+                        .setFooter(new MessageEmbed.Footer("BruhBot", ctx.getChannel().getJDA().getSelfUser().getAvatarUrl(), null))
                         .setTime(OffsetDateTime.now());
 
                 for (int i = 0; i != help_commands.length; i++)
                     builder.addField(new MessageEmbed.Field(help_commands[i], help_descriptions[i], false));
                 message.getAuthor().openPrivateChannel().queue(c -> c.sendMessage(builder.toEmbed()).queue());
-                commandChannel.sendMessage("Check DMs.").queue();
-                success = true;
+                ctx.getChannel().sendMessage("Check DMs.").queue();
+                ctx.setSuccess(true);
                 break;
             }
             default: {
-                commandChannel.sendMessage("What?").queue();
-                success = false;
-                reason = "Invalid command code.";
+                ctx.getChannel().sendMessage("What?").queue();
+                ctx.setSuccess(false);
+                ctx.setReason("Invalid command code.");
                 break;
             }
         }
-        if (success) log("User command successfully executed.");
-        else log("User command failed. Reason: " + reason);
-        Arrays.fill(args, null);
-        return log;
+        if (ctx.isSuccess()) log(ctx, "User command successfully executed.");
+        else log(ctx, "User command failed. Reason: " + ctx.getReason());
+        return ctx;
     }
 
     private long getTotalTime(String arg) {
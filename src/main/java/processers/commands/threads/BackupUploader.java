@@ -0,0 +1,177 @@
+package processers.commands.threads;
+
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * <p>Copies a remote file to a file host without holding it in memory.</p>
+ * The file is streamed to a temporary file with {@link FileChannel#transferFrom}, hashing it on the way and giving up
+ * as soon as it goes over the size cap, then streamed from disk into a multipart upload of known length. Only the
+ * JSON answer of the host is kept.
+ */
+public class BackupUploader {
+
+    private static final String CMD_HEADER = "(BACKUP) ";
+    private static final int CONNECT_TIMEOUT_MILLIS = 15_000;
+    private static final int READ_TIMEOUT_MILLIS = 120_000;
+    private static final long TRANSFER_CHUNK_BYTES = 1024 * 1024;
+
+    /**
+     * <p>Outcome of a backup: the answer of the host, and what was sent to it.</p>
+     */
+    public static final class Result {
+        private final JSONObject response;
+        private final String sha256;
+        private final long size;
+
+        private Result(JSONObject response, String sha256, long size) {
+            this.response = response;
+            this.sha256 = sha256;
+            this.size = size;
+        }
+
+        public JSONObject getResponse() {
+            return response;
+        }
+
+        public String getSha256() {
+            return sha256;
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
+
+    private final String uploadUrl;
+    private final String token;
+    private final long maxBytes;
+
+    /**
+     * @param token    API token sent along with the file, or {@code null} for none.
+     * @param maxBytes Largest file accepted.
+     */
+    public BackupUploader(String uploadUrl, String token, long maxBytes) {
+        this.uploadUrl = uploadUrl;
+        this.token = token;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @throws IOException    If the download or upload fails, or the file is over the size cap
+     * @throws ParseException If the host didn't answer with JSON
+     */
+    public Result backup(String sourceUrl, String fileName) throws IOException, ParseException {
+        Path temp = Files.createTempFile("backup-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            long size = download(sourceUrl, temp, digest);
+            String checksum = toHex(digest.digest());
+            System.out.println(CMD_HEADER + "Downloaded " + size + " bytes from " + sourceUrl + ", SHA-256 " + checksum + ".");
+            JSONObject response = upload(temp, size, fileName);
+            return new Result(response, checksum, size);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private long download(String sourceUrl, Path target, MessageDigest digest) throws IOException {
+        HttpURLConnection connection = open(sourceUrl);
+        try {
+            if (connection.getResponseCode() >= 400)
+                throw new IOException("Download failed with HTTP " + connection.getResponseCode());
+            long declared = connection.getContentLengthLong();
+            if (declared > maxBytes) throw new IOException("File too large (" + declared + " bytes, cap is " + maxBytes + ")");
+
+            try (ReadableByteChannel source = Channels.newChannel(new DigestInputStream(connection.getInputStream(), digest));
+                 FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long position = 0;
+                while (true) {
+                    // Asks for one byte past the cap, so going over it is noticed
+                    long transferred = out.transferFrom(source, position, Math.min(TRANSFER_CHUNK_BYTES, maxBytes + 1 - position));
+                    if (transferred == 0) return position;
+                    position += transferred;
+                    if (position > maxBytes) throw new IOException("File too large (over the cap of " + maxBytes + " bytes)");
+                }
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private JSONObject upload(Path file, long size, String fileName) throws IOException, ParseException {
+        String boundary = "----BruhBot" + Long.toHexString(System.nanoTime());
+        StringBuilder head = new StringBuilder();
+        if (token != null) head
+                .append("--").append(boundary).append("\r\n")
+                .append("Content-Disposition: form-data; name=\"token\"\r\n\r\n")
+                .append(token).append("\r\n");
+        head
+                .append("--").append(boundary).append("\r\n")
+                .append("Content-Disposition: form-data; name=\"file\"; filename=\"").append(fileName.replace("\"", "")).append("\"\r\n")
+                .append("Content-Type: application/octet-stream\r\n\r\n");
+        byte[] headBytes = head.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] tailBytes = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8);
+
+        HttpURLConnection connection = open(uploadUrl);
+        try {
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "multipart/form-data; boundary=" + boundary);
+            // Known length, so the body isn't buffered to compute it
+            connection.setFixedLengthStreamingMode(headBytes.length + size + tailBytes.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(headBytes);
+                Files.copy(file, out);
+                out.write(tailBytes);
+            }
+
+            int code = connection.getResponseCode();
+            InputStream body = code >= 400 ? connection.getErrorStream() : connection.getInputStream();
+            if (body == null) throw new IOException("Upload failed with HTTP " + code + " and no answer");
+            try (Reader reader = new InputStreamReader(body, StandardCharsets.UTF_8)) {
+                return (JSONObject) new JSONParser().parse(reader);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static HttpURLConnection open(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+        connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+        connection.setRequestProperty("User-Agent", "BruhBot");
+        return connection;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support it
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        return sb.toString();
+    }
+}
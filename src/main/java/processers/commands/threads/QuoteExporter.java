@@ -0,0 +1,209 @@
+package processers.commands.threads;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.entities.TextChannel;
+import processers.persistence.DataManagementProcessor;
+import util.Quote;
+import util.TokenBucket;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <p>Writes every quote to gzipped text files and uploads them to a channel.</p>
+ * Quotes are streamed straight into the compressed file, which is uploaded and replaced by a new one whenever it gets
+ * close to Discord's upload limit. Cached content is used when available; the remaining messages are retrieved
+ * concurrently, with a bound on the requests in flight and a token bucket on how fast they start, and cached on the
+ * way. Entries keep the order of the quotes regardless of when their message arrives. Progress is edited into a
+ * single status message.
+ */
+public class QuoteExporter {
+
+    private static final String CMD_HEADER = "(EXPORT) ";
+    private static final long UPLOAD_LIMIT_BYTES = 8L * 1024 * 1024;
+    // Compressed data still held by the deflater and the writer buffer, not counted yet
+    private static final long BUFFERED_SLACK_BYTES = 512 * 1024;
+    private static final int MAX_PARALLEL_FETCHES = 4;
+    // Entries waiting to be written, so fetches run ahead of the writer
+    private static final int WINDOW_SIZE = 64;
+    private static final int BURST_REQUESTS = 5;
+    private static final int REQUESTS_PER_SECOND = 2;
+    private static final long PROGRESS_INTERVAL_MILLIS = 3000;
+
+    private final MessageChannel channel;
+    private final DataManagementProcessor dmp;
+    private final Guild guild;
+    private final Semaphore fetches = new Semaphore(MAX_PARALLEL_FETCHES);
+    private final TokenBucket requests = new TokenBucket(BURST_REQUESTS, REQUESTS_PER_SECOND, 1, TimeUnit.SECONDS);
+
+    private Message status;
+    private long lastProgress;
+    private int parts;
+
+    public QuoteExporter(MessageChannel channel, DataManagementProcessor dmp, Guild guild) {
+        this.channel = channel;
+        this.dmp = dmp;
+        this.guild = guild;
+    }
+
+    /**
+     * @return The amount of files uploaded
+     */
+    public int export() throws IOException, InterruptedException {
+        List<Quote> quotes = dmp.getQuotes();
+        status = channel.sendMessage("Exporting " + quotes.size() + " quotes...").complete();
+        lastProgress = System.currentTimeMillis();
+
+        ArrayDeque<Entry> window = new ArrayDeque<>(WINDOW_SIZE);
+        int written = 0;
+        Part part = null;
+        try {
+            for (int i = 0; i <= quotes.size(); i++) {
+                if (i != quotes.size()) window.add(new Entry(quotes.get(i), contentOf(quotes.get(i))));
+                // Drains everything once all quotes were queued
+                while (window.size() >= WINDOW_SIZE || (i == quotes.size() && !window.isEmpty())) {
+                    if (part == null) part = new Part(++parts);
+                    Entry entry = window.poll();
+                    part.writer.write(format(entry.quote, entry.content.join()));
+                    written++;
+                    if (part.isFull()) {
+                        part.upload();
+                        part = null;
+                    }
+                    progress(written, quotes.size());
+                }
+            }
+            if (part != null) {
+                part.upload();
+                part = null;
+            }
+        } finally {
+            if (part != null) part.discard();
+        }
+        status.editMessage("Exported " + written + " quotes in " + parts + " files.").queue();
+        System.out.println(CMD_HEADER + "Exported " + written + " quotes in " + parts + " files.");
+        return parts;
+    }
+
+    private CompletableFuture<String> contentOf(Quote quote) throws InterruptedException {
+        if (quote.hasContent()) return CompletableFuture.completedFuture(quote.getContent());
+        TextChannel tc = guild.getTextChannelById(quote.getChannel());
+        if (tc == null) return CompletableFuture.completedFuture("Text channel deleted.");
+
+        fetches.acquire();
+        try {
+            requests.acquire();
+            return tc.retrieveMessageById(quote.getId()).submit()
+                    .thenApply(m -> {
+                        dmp.cacheQuoteContent(quote.getId(), m.getContentRaw());
+                        return m.getContentRaw();
+                    })
+                    .exceptionally(e -> "(Message deleted)")
+                    .whenComplete((content, e) -> fetches.release());
+        } catch (InterruptedException | RuntimeException e) {
+            fetches.release();
+            throw e;
+        }
+    }
+
+    private static String format(Quote quote, String content) {
+        StringBuilder sb = new StringBuilder()
+                .append('-')
+                .append(quote.getNickname())
+                .append(", ")
+                .append(quote.getTime().toLocalDate().toString());
+        if (!quote.getAttachment().equals("")) sb.append("\nAlso included a file: ").append(quote.getAttachment());
+        return sb
+                .append("\n(")
+                .append(quote.getId())
+                .append(")\n")
+                .append(content)
+                .append("\n\n")
+                .toString();
+    }
+
+    private void progress(int written, int total) {
+        long now = System.currentTimeMillis();
+        if (now - lastProgress < PROGRESS_INTERVAL_MILLIS) return;
+        lastProgress = now;
+        status.editMessage("Exporting quotes: " + written + "/" + total + " (" + (written * 100 / total) + "%), " + (parts - 1) + " files sent.").queue();
+    }
+
+    private static final class Entry {
+        private final Quote quote;
+        private final CompletableFuture<String> content;
+
+        private Entry(Quote quote, CompletableFuture<String> content) {
+            this.quote = quote;
+            this.content = content;
+        }
+    }
+
+    /**
+     * <p>One gzipped file, uploaded once it's full or the export is over.</p>
+     */
+    private final class Part {
+        private final int number;
+        private final File file;
+        private final CountingOutputStream counter;
+        private final Writer writer;
+
+        private Part(int number) throws IOException {
+            this.number = number;
+            this.file = Files.createTempFile("quotes-", ".txt.gz").toFile();
+            this.counter = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            this.writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(counter), StandardCharsets.UTF_8));
+        }
+
+        private boolean isFull() {
+            return counter.count + BUFFERED_SLACK_BYTES >= UPLOAD_LIMIT_BYTES;
+        }
+
+        private void upload() throws IOException {
+            writer.close();
+            try {
+                channel.sendFile(file, "quotes-" + number + ".txt.gz").complete();
+                System.out.println(CMD_HEADER + "Uploaded part " + number + " (" + file.length() + " bytes).");
+            } finally {
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+
+        private void discard() throws IOException {
+            try {
+                writer.close();
+            } finally {
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package processers.persistence;
 
+import events.ReminderTimerEvent;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
@@ -7,28 +8,47 @@ import persistencelib.Atom;
 import persistencelib.Key;
 import persistencelib.StorageManager;
 import persistencelib.Version;
+import util.LongObjectHashMap;
 import util.Quote;
+import util.Snowflake;
+import util.TriggerIndex;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.OffsetDateTime;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 
 /**
  * <p>Processor tasked with managing updates and access to the data used by the program.</p>
+ * Data lives in memory, and every mutation is recorded in a write-ahead log as it happens, so nothing is lost if the
+ * bot dies between saves. A background thread periodically writes a snapshot of everything to a temporary database
+ * file and renames it over the real one, so the file on disk is always a complete database. Only the copy of the
+ * data is taken under the lock; serializing and writing it doesn't block commands.
  */
 @SuppressWarnings({"unused", "UnusedReturnValue"})
 public class DataManagementProcessor {
 
+    private static final String CMD_HEADER = "(DMP) ";
+    public static final long DEFAULT_FSYNC_INTERVAL_MILLIS = 1000;
+    public static final long DEFAULT_SNAPSHOT_INTERVAL_MINUTES = 30;
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+    private static final long BOT_OWNER_ID = 265904613687820288L;
+
     private static final String
             ANSWER_ATOM = "ANSWER",
             REACTION_ATOM = "REACTION",
             IDENTIFIER_ATOM = "ID",
             QUOTE_ATOM = "QUOTE",
             JSON_ATOM = "JSON",
-            MEMBER_ATOM = "MEMBER";
+            MEMBER_ATOM = "MEMBER",
+            REMINDER_ATOM = "REMINDER";
 
     public static final String PREFIX_ADMINISTRATORS = "admins";
     public static final String PREFIX_TEXT_CATEGORIES = "text-categories";
@@ -38,23 +58,104 @@ public class DataManagementProcessor {
     public static final String PREFIX_ROLES = "roles";
     public static final String PREFIX_RESTORATOR_MEMBERS = "restorator";
 
-    private final Set<Quote> quotes;
+    private final QuoteStore quotes;
     private final Map<String, String> answers;
     private final Map<String, String> reactions;
     private final Map<String, String> identifiers;
+    private final IdentifierIndex identifierIndex;
     private final Map<String, JSONObject> objects;
     private final Map<String, Set<String>> members;
+    // Restorator entries of the member region ("restorator.<member ID>")
+    private final RestoratorStore restorator;
+    private final Map<String, ReminderTimerEvent> reminders;
+
+    // Precompiled views of the answer/reaction triggers, rebuilt whenever the trigger sets change
+    private volatile TriggerIndex answerIndex = TriggerIndex.EMPTY;
+    private volatile TriggerIndex reactionIndex = TriggerIndex.EMPTY;
+
+    private final String dbName;
+    private final File storageDirectory;
+    // Only used to load the database, snapshots are written by their own manager
+    private StorageManager manager;
+    private final WriteAheadLog wal;
+    // Records already moved out of the log, but not yet covered by a finished snapshot
+    private final File sealedLog;
+    private final long snapshotIntervalMinutes;
+    private final ScheduledExecutorService snapshotter;
+    // Set while replaying the log, so replayed mutations aren't logged again
+    private boolean replaying;
 
-    private final StorageManager manager;
+    private volatile long snapshotCount;
+    private volatile long failedSnapshotCount;
+    private volatile long lastSnapshotMillis;
+    private volatile long maxSnapshotMillis;
+    private volatile long lastSnapshotBytes;
+    private volatile long totalSnapshotBytes;
 
     public DataManagementProcessor(String dbName) throws IOException {
-        this.quotes = new HashSet<>();
-        this.answers = new HashMap<>();
-        this.reactions = new HashMap<>();
-        this.identifiers = new HashMap<>();
-        this.objects = new HashMap<>();
-        this.members = new HashMap<>();
-        this.manager = new StorageManager(dbName, Version.V100);
+        this(dbName, DEFAULT_FSYNC_INTERVAL_MILLIS, DEFAULT_SNAPSHOT_INTERVAL_MINUTES);
+    }
+
+    /**
+     * @param dbName                  Name of the database file.
+     * @param fsyncIntervalMillis     How often logged mutations are forced to disk. 0 forces every single one.
+     * @param snapshotIntervalMinutes How often a snapshot is written in the background. 0 only writes them on {@link #save()}.
+     */
+    public DataManagementProcessor(String dbName, long fsyncIntervalMillis, long snapshotIntervalMinutes) throws IOException {
+        this(dbName, defaultStorageDirectory(), fsyncIntervalMillis, snapshotIntervalMinutes);
+    }
+
+    /**
+     * <p>Keeps the database files in the specified directory instead of the default one. Meant for throwaway
+     * databases, such as the benchmark ones.</p>
+     */
+    DataManagementProcessor(String dbName, File storageDirectory, long fsyncIntervalMillis, long snapshotIntervalMinutes) throws IOException {
+        this.quotes = new QuoteStore();
+        this.answers = new ConcurrentHashMap<>();
+        this.reactions = new ConcurrentHashMap<>();
+        this.identifiers = new ConcurrentHashMap<>();
+        this.identifierIndex = new IdentifierIndex();
+        this.objects = new ConcurrentHashMap<>();
+        this.members = new ConcurrentHashMap<>();
+        this.restorator = new RestoratorStore();
+        this.reminders = new ConcurrentHashMap<>();
+        this.dbName = dbName;
+        this.storageDirectory = storageDirectory;
+        this.manager = storageManager(dbName);
+        this.wal = new WriteAheadLog(storageFile(dbName + ".wal"), fsyncIntervalMillis);
+        this.sealedLog = storageFile(dbName + ".wal.old");
+        this.snapshotIntervalMinutes = snapshotIntervalMinutes;
+        this.snapshotter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "dmp-snapshotter");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * @return The directory {@link StorageManager} keeps its databases in by default, the one of its jar
+     */
+    private static File defaultStorageDirectory() {
+        String path = StorageManager.class.getProtectionDomain().getCodeSource().getLocation().getPath();
+        if (path.matches(".*\\.jar$")) path = path.substring(0, path.lastIndexOf('/') + 1);
+        return new File(path);
+    }
+
+    /**
+     * @return The file with the specified name, in the storage directory
+     */
+    private File storageFile(String name) {
+        return new File(storageDirectory, name);
+    }
+
+    /**
+     * <p>Opens a database in the storage directory. {@link StorageManager} always resolves names against its default
+     * directory, so it's given the path from there.</p>
+     */
+    private StorageManager storageManager(String name) throws IOException {
+        Path path = defaultStorageDirectory().getAbsoluteFile().toPath()
+                .relativize(storageDirectory.getAbsoluteFile().toPath().resolve(name));
+        return new StorageManager(path.toString(), Version.V100);
     }
 
     private void initRegion(String regionIdentifier, BiConsumer<Atom, Key> action) {
@@ -64,12 +165,17 @@ public class DataManagementProcessor {
     }
 
     public void initialize() {
-        initRegion(IDENTIFIER_ATOM, (a, k) -> identifiers.put(k.toString(), a.getItem(k).iterator().next()));
-        initRegion(ANSWER_ATOM, (a, k) -> identifiers.put(k.toString(), a.getItem(k).iterator().next()));
-        initRegion(REACTION_ATOM, (a, k) -> identifiers.put(k.toString(), a.getItem(k).iterator().next()));
+        initRegion(IDENTIFIER_ATOM, (a, k) -> {
+            String id = a.getItem(k).iterator().next();
+            identifiers.put(k.toString(), id);
+            identifierIndex.add(k.toString(), id);
+        });
+        initRegion(ANSWER_ATOM, (a, k) -> answers.put(k.toString(), a.getItem(k).iterator().next()));
+        initRegion(REACTION_ATOM, (a, k) -> reactions.put(k.toString(), a.getItem(k).iterator().next()));
+        rebuildAnswerIndex();
+        rebuildReactionIndex();
         initRegion(QUOTE_ATOM, (a, k) -> {
-            List<String> l = new LinkedList<>(a.getItem(k));
-            quotes.add(new Quote(l.get(0), l.get(1), l.get(2), OffsetDateTime.parse(l.get(3)), k.toString()));
+            quotes.put(quoteFrom(k.toString(), new ArrayList<>(a.getItem(k))));
         });
         JSONParser parser = new JSONParser();
         initRegion(JSON_ATOM, (a, k) -> {
@@ -80,11 +186,265 @@ public class DataManagementProcessor {
                 e.printStackTrace();
             }
         });
-        initRegion(MEMBER_ATOM, (a, k) -> members.put(k.toString(), new HashSet<>(a.getItem(k))));
+        initRegion(MEMBER_ATOM, (a, k) -> {
+            long memberID = restoratorKey(k.toString());
+            if (memberID != Snowflake.INVALID) {
+                restorator.addMember(memberID);
+                for (String roleID : a.getItem(k)) restorator.addRole(memberID, Snowflake.parse(roleID));
+                return;
+            }
+            Set<String> data = ConcurrentHashMap.newKeySet();
+            data.addAll(a.getItem(k));
+            members.put(k.toString(), data);
+        });
+        initRegion(REMINDER_ATOM, (a, k) -> {
+            ReminderTimerEvent reminder = reminderFromValues(k.toString(), new ArrayList<>(a.getItem(k)));
+            if (reminder != null) reminders.put(k.toString(), reminder);
+        });
+        manager = null;
+
+        // Mutations that happened after the last snapshot. Records are idempotent, so replaying a sealed log that
+        // made it into the snapshot right before a crash is harmless.
+        synchronized (this) {
+            replaying = true;
+            try {
+                int replayed = 0;
+                if (sealedLog.exists()) try (WriteAheadLog sealed = new WriteAheadLog(sealedLog, 0)) {
+                    replayed += sealed.replay(this::apply);
+                }
+                replayed += wal.replay(this::apply);
+                if (replayed != 0) System.out.println(CMD_HEADER + "Replayed " + replayed + " logged mutations.");
+            } catch (IOException e) {
+                System.err.println(CMD_HEADER + "ERROR: Unable to replay the write-ahead log. Trace below:");
+                e.printStackTrace();
+            } finally {
+                replaying = false;
+            }
+        }
+
+        if (snapshotIntervalMinutes > 0) {
+            snapshotter.scheduleWithFixedDelay(() -> {
+                try {
+                    snapshot();
+                } catch (IOException e) {
+                    System.err.println(CMD_HEADER + "ERROR: Background snapshot failed. Trace below:");
+                    e.printStackTrace();
+                }
+            }, snapshotIntervalMinutes, snapshotIntervalMinutes, TimeUnit.MINUTES);
+        }
     }
 
+    /**
+     * <p>Writes a snapshot of the whole database right away, and waits for it to finish.</p>
+     */
     public void save() throws IOException {
-        manager.save();
+        try {
+            snapshotter.submit(() -> {
+                snapshot();
+                return null;
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the snapshot", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw new IOException("Snapshot failed", e.getCause());
+        }
+    }
+
+    /**
+     * <p>Stops background work and forces pending mutations to disk.</p>
+     */
+    public void close() throws IOException {
+        snapshotter.shutdownNow();
+        synchronized (this) {
+            wal.close();
+        }
+    }
+
+    // Always runs on the snapshotter thread, so snapshots never overlap
+    private void snapshot() throws IOException {
+        long start = System.nanoTime();
+        Map<String, String> answersCopy, reactionsCopy, identifiersCopy, objectsCopy;
+        Map<String, Set<String>> membersCopy;
+        LongObjectHashMap<long[]> restoratorCopy;
+        Map<String, List<String>> remindersCopy;
+        List<Quote> quotesCopy;
+        try {
+            // Consistent view: no mutation can land between the copy and the log rotation
+            synchronized (this) {
+                answersCopy = new HashMap<>(answers);
+                reactionsCopy = new HashMap<>(reactions);
+                identifiersCopy = new HashMap<>(identifiers);
+                quotesCopy = quotes.copy();
+                objectsCopy = new HashMap<>();
+                objects.forEach((name, object) -> objectsCopy.put(name, object.toJSONString()));
+                membersCopy = new HashMap<>();
+                members.forEach((name, data) -> membersCopy.put(name, new HashSet<>(data)));
+                restoratorCopy = new LongObjectHashMap<>(restorator.size());
+                restorator.forEach(restoratorCopy::put);
+                remindersCopy = new HashMap<>();
+                reminders.forEach((id, reminder) -> remindersCopy.put(id, reminderValues(reminder)));
+                wal.rotate(sealedLog);
+            }
+
+            File temp = storageFile(dbName + SNAPSHOT_SUFFIX + ".b");
+            File target = storageFile(dbName + ".b");
+            // Leftovers from an interrupted snapshot would otherwise be loaded into this one
+            Files.deleteIfExists(temp.toPath());
+            StorageManager snapshot = storageManager(dbName + SNAPSHOT_SUFFIX);
+            for (String region : new String[]{ANSWER_ATOM, REACTION_ATOM, IDENTIFIER_ATOM, JSON_ATOM, QUOTE_ATOM, MEMBER_ATOM, REMINDER_ATOM})
+                snapshot.addRegion(region);
+            // New regions are only queued until the next save, and adding to them before would fail
+            snapshot.save();
+            writeRegion(snapshot, ANSWER_ATOM, answersCopy);
+            writeRegion(snapshot, REACTION_ATOM, reactionsCopy);
+            writeRegion(snapshot, IDENTIFIER_ATOM, identifiersCopy);
+            writeRegion(snapshot, JSON_ATOM, objectsCopy);
+            quotesCopy.forEach(q -> snapshot.addToRegion(QUOTE_ATOM, new Key(q.getId()), quoteValues(q)));
+            membersCopy.forEach((name, data) -> snapshot.addToRegion(MEMBER_ATOM, new Key(name), data));
+            restoratorCopy.forEach((memberID, roles) -> {
+                List<String> roleIDs = new ArrayList<>(roles.length);
+                for (long roleID : roles) roleIDs.add(Snowflake.toString(roleID));
+                snapshot.addToRegion(MEMBER_ATOM, new Key(restoratorName(memberID)), roleIDs);
+            });
+            remindersCopy.forEach((id, values) -> snapshot.addToRegion(REMINDER_ATOM, new Key(id), values));
+            snapshot.save();
+
+            long bytes = temp.length();
+            if (target.exists())
+                Files.copy(target.toPath(), new File(target.getPath() + ".bak").toPath(), StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Files.deleteIfExists(new File(temp.getPath() + ".bak").toPath());
+            // Everything in the sealed log is now part of the database file
+            Files.deleteIfExists(sealedLog.toPath());
+
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            snapshotCount++;
+            lastSnapshotMillis = millis;
+            maxSnapshotMillis = Math.max(maxSnapshotMillis, millis);
+            lastSnapshotBytes = bytes;
+            totalSnapshotBytes += bytes;
+            System.out.println(CMD_HEADER + "Snapshot written in " + millis + "ms (" + bytes + " bytes).");
+        } catch (IOException | RuntimeException e) {
+            failedSnapshotCount++;
+            throw e;
+        }
+    }
+
+    private static void writeRegion(StorageManager snapshot, String region, Map<String, String> values) {
+        values.forEach((key, value) -> snapshot.addToRegion(region, new Key(key), Collections.singleton(value)));
+    }
+
+    private static List<String> quoteValues(Quote quote) {
+        List<String> values = new ArrayList<>(5);
+        values.add(quote.getChannel());
+        values.add(quote.getAttachment());
+        values.add(quote.getNickname());
+        values.add(quote.getTime().toString());
+        // Quotes from before the content cache only have the first four values
+        if (quote.hasContent()) values.add(quote.getCompressedContent());
+        return values;
+    }
+
+    private static Quote quoteFrom(String id, List<String> values) {
+        return new Quote(values.get(0), values.get(1), values.get(2), OffsetDateTime.parse(values.get(3)), id,
+                values.size() > 4 ? values.get(4) : null);
+    }
+
+    private static List<String> reminderValues(ReminderTimerEvent reminder) {
+        return Arrays.asList(
+                reminder.getUserID(),
+                reminder.getGuildID(),
+                reminder.getMessageID(),
+                reminder.getTime().toString(),
+                Long.toString(reminder.getDelay()),
+                reminder.getMessage());
+    }
+
+    private static ReminderTimerEvent reminderFromValues(String id, List<String> values) {
+        try {
+            return new ReminderTimerEvent(OffsetDateTime.parse(values.get(3)), Long.parseLong(values.get(4)), Long.parseLong(id),
+                    values.get(0), values.get(1), values.get(2), values.get(5));
+        } catch (RuntimeException e) {
+            System.err.println(CMD_HEADER + "WARNING: Invalid reminder " + id + " found, skipping. Values: " + values);
+            return null;
+        }
+    }
+
+    // Snapshot metrics
+    public long getSnapshotCount() {
+        return snapshotCount;
+    }
+    public long getFailedSnapshotCount() {
+        return failedSnapshotCount;
+    }
+    public long getLastSnapshotMillis() {
+        return lastSnapshotMillis;
+    }
+    public long getMaxSnapshotMillis() {
+        return maxSnapshotMillis;
+    }
+    public long getLastSnapshotBytes() {
+        return lastSnapshotBytes;
+    }
+    public long getTotalSnapshotBytes() {
+        return totalSnapshotBytes;
+    }
+
+    private void log(WriteAheadLog.Operation operation, String region, String key, Collection<String> values) {
+        if (replaying) return;
+        try {
+            wal.append(operation, region, key, values);
+        } catch (IOException e) {
+            System.err.println(CMD_HEADER + "ERROR: Unable to log " + operation + " " + region + "/" + key + ". It will only be stored on the next snapshot. Trace below:");
+            e.printStackTrace();
+        }
+    }
+
+    private void apply(WriteAheadLog.Record record) {
+        String key = record.getKey();
+        List<String> values = record.getValues();
+        boolean put = record.getOperation() == WriteAheadLog.Operation.PUT;
+        switch (record.getRegion()) {
+            case ANSWER_ATOM:
+                if (put) addAnswer(key, values.get(0)); else removeAnswer(key);
+                break;
+            case REACTION_ATOM:
+                if (put) addReaction(key, values.get(0)); else removeReaction(key);
+                break;
+            case IDENTIFIER_ATOM:
+                if (put) addIdentifier(key, values.get(0)); else removeIdentifier(key);
+                break;
+            case QUOTE_ATOM:
+                if (put) addQuote(quoteFrom(key, values));
+                else removeQuote(key);
+                break;
+            case JSON_ATOM:
+                if (put) try {
+                    addJSONObject(key, (JSONObject) new JSONParser().parse(values.get(0)));
+                } catch (ParseException e) {
+                    System.err.println(CMD_HEADER + "WARNING: Invalid logged JSON object " + key + ", skipping.");
+                }
+                else removeJSONObject(key);
+                break;
+            case MEMBER_ATOM:
+                switch (record.getOperation()) {
+                    case PUT: addMember(key); break;
+                    case REMOVE: removeMember(key); break;
+                    case ADD_VALUE: addToMember(key, values.get(0)); break;
+                    case REMOVE_VALUE: removeFromMember(key, values.get(0)); break;
+                }
+                break;
+            case REMINDER_ATOM:
+                if (put) {
+                    ReminderTimerEvent reminder = reminderFromValues(key, values);
+                    if (reminder != null) addReminder(reminder);
+                } else removeReminder(key);
+                break;
+            default:
+                System.err.println(CMD_HEADER + "WARNING: Logged mutation for unknown region " + record.getRegion() + ", skipping.");
+        }
     }
 
     // Answers
@@ -94,20 +454,27 @@ public class DataManagementProcessor {
     public String getAnswer(String trigger) {
         return answers.get(trigger);
     }
+    /**
+     * @return The first answer trigger matching the whole message, or {@code null} if none does
+     */
+    public String findAnswerTrigger(String content) {
+        return answerIndex.firstMatch(content);
+    }
 
     /**
      * @return {@code true} if the answer wasn't previously in, {@code false} otherwise
      */
-    public boolean addAnswer(String trigger, String answer) {
-        if (!manager.addToRegion(ANSWER_ATOM, new Key(trigger), Collections.singleton(answer)))
-            manager.replaceInRegion(ANSWER_ATOM, new Key(trigger), Collections.singleton(answer));
-        return answers.put(trigger, answer) == null;
-    }
-    public boolean removeAnswer(String trigger) {
-        boolean success1 = manager.removeFromRegion(ANSWER_ATOM, new Key(trigger));
-        boolean success2 = answers.remove(trigger) != null;
-        // Return true if both are true, return false otherwise
-        return success1 && success2;
+    public synchronized boolean addAnswer(String trigger, String answer) {
+        log(WriteAheadLog.Operation.PUT, ANSWER_ATOM, trigger, Collections.singleton(answer));
+        boolean added = answers.put(trigger, answer) == null;
+        if (added) rebuildAnswerIndex();
+        return added;
+    }
+    public synchronized boolean removeAnswer(String trigger) {
+        boolean removed = answers.remove(trigger) != null;
+        if (removed) rebuildAnswerIndex();
+        if (removed) log(WriteAheadLog.Operation.REMOVE, ANSWER_ATOM, trigger, Collections.emptySet());
+        return removed;
     }
 
     // Reactions
@@ -117,19 +484,33 @@ public class DataManagementProcessor {
     public String getReaction(String trigger) {
         return reactions.get(trigger);
     }
+    /**
+     * @return Every reaction trigger matching the whole message
+     */
+    public List<String> findReactionTriggers(String content) {
+        return reactionIndex.allMatches(content);
+    }
     /**
      * @return {@code true} if the reaction wasn't previously in, {@code false} otherwise
      */
-    public boolean addReaction(String trigger, String reaction) {
-        if (!manager.addToRegion(REACTION_ATOM, new Key(trigger), Collections.singleton(reaction)))
-            manager.replaceInRegion(REACTION_ATOM, new Key(trigger), Collections.singleton(reaction));
-        return reactions.put(trigger, reaction) == null;
+    public synchronized boolean addReaction(String trigger, String reaction) {
+        log(WriteAheadLog.Operation.PUT, REACTION_ATOM, trigger, Collections.singleton(reaction));
+        boolean added = reactions.put(trigger, reaction) == null;
+        if (added) rebuildReactionIndex();
+        return added;
+    }
+    public synchronized boolean removeReaction(String trigger) {
+        boolean removed = reactions.remove(trigger) != null;
+        if (removed) rebuildReactionIndex();
+        if (removed) log(WriteAheadLog.Operation.REMOVE, REACTION_ATOM, trigger, Collections.emptySet());
+        return removed;
     }
-    public boolean removeReaction(String trigger) {
-        boolean success1 = manager.removeFromRegion(REACTION_ATOM, new Key(trigger));
-        boolean success2 = reactions.remove(trigger) != null;
-        // Return true if both are true, return false otherwise
-        return success1 && success2;
+
+    private void rebuildAnswerIndex() {
+        answerIndex = new TriggerIndex(answers.keySet());
+    }
+    private void rebuildReactionIndex() {
+        reactionIndex = new TriggerIndex(reactions.keySet());
     }
 
     // Identifiers
@@ -142,53 +523,61 @@ public class DataManagementProcessor {
     /**
      * @return {@code true} if the identifier wasn't previously in, {@code false} otherwise
      */
-    public boolean addIdentifier(String name, String id) {
-        if (!manager.addToRegion(IDENTIFIER_ATOM, new Key(name), Collections.singleton(id)))
-            manager.replaceInRegion(IDENTIFIER_ATOM, new Key(name), Collections.singleton(id));
-        return identifiers.put(name, id) == null;
-    }
-    public boolean removeIdentifier(String name) {
-        boolean success1 = manager.removeFromRegion(IDENTIFIER_ATOM, new Key(name));
-        boolean success2 = identifiers.remove(name) != null;
-        // Return true if both are true, return false otherwise
-        return success1 && success2;
+    public synchronized boolean addIdentifier(String name, String id) {
+        log(WriteAheadLog.Operation.PUT, IDENTIFIER_ATOM, name, Collections.singleton(id));
+        String previous = identifiers.put(name, id);
+        if (previous != null) identifierIndex.remove(name, previous);
+        identifierIndex.add(name, id);
+        return previous == null;
+    }
+    public synchronized boolean removeIdentifier(String name) {
+        String previous = identifiers.remove(name);
+        boolean removed = previous != null;
+        if (removed) identifierIndex.remove(name, previous);
+        if (removed) log(WriteAheadLog.Operation.REMOVE, IDENTIFIER_ATOM, name, Collections.emptySet());
+        return removed;
     }
 
     // Quotes
-    public Set<Quote> getQuotes() {
-        return Collections.unmodifiableSet(quotes);
+    /**
+     * @return A copy of every quote, safe to iterate while quotes are being added or removed
+     */
+    public List<Quote> getQuotes() {
+        return quotes.copy();
+    }
+    public int getQuoteCount() {
+        return quotes.size();
     }
     public Quote getQuote(String id) {
-        for (Quote q : quotes) if (q.getId().equals(id)) return q;
-        return null;
+        return quotes.get(id);
     }
+    /**
+     * @return A uniformly chosen quote, or {@code null} if there are none
+     */
     public Quote getRandomQuote(long seed) {
-        Iterator<Quote> it = quotes.iterator();
-        int i = new Random(seed).nextInt(quotes.size());
-        for (;i != 0; i--) it.next();
-        return it.next();
+        return quotes.random(new Random(seed));
     }
     /**
      * @return {@code true} if the quote wasn't previously in, {@code false} otherwise
      */
-    public boolean addQuote(Quote quote) {
-        if (!manager.addToRegion(QUOTE_ATOM, new Key(quote.getId()), Arrays.asList(
-                quote.getChannel(),
-                quote.getAttachment(),
-                quote.getNickname(),
-                quote.getTime().toString())))
-            manager.replaceInRegion(QUOTE_ATOM, new Key(quote.getId()), Arrays.asList(
-                    quote.getChannel(),
-                    quote.getAttachment(),
-                    quote.getNickname(),
-                    quote.getTime().toString()));
-        return quotes.add(quote);
-    }
-    public boolean removeQuote(String id) {
-        boolean success1 = manager.removeFromRegion(QUOTE_ATOM, new Key(id));
-        boolean success2 = quotes.removeIf(q -> q.getId().equals(id));
-        // Return true if both are true, return false otherwise
-        return success1 && success2;
+    public synchronized boolean addQuote(Quote quote) {
+        List<String> values = quoteValues(quote);
+        log(WriteAheadLog.Operation.PUT, QUOTE_ATOM, quote.getId(), values);
+        return quotes.put(quote);
+    }
+    /**
+     * @return {@code false} if the quote was removed in the meantime
+     */
+    public synchronized boolean cacheQuoteContent(String id, String content) {
+        Quote quote = quotes.get(id);
+        if (quote == null) return false;
+        addQuote(quote.withContent(content));
+        return true;
+    }
+    public synchronized boolean removeQuote(String id) {
+        boolean removed = quotes.remove(id);
+        if (removed) log(WriteAheadLog.Operation.REMOVE, QUOTE_ATOM, id, Collections.emptySet());
+        return removed;
     }
 
     // JSON objects
@@ -201,58 +590,160 @@ public class DataManagementProcessor {
     /**
      * @return {@code true} if the JSON object wasn't previously in, {@code false} otherwise
      */
-    public boolean addJSONObject(String name, JSONObject object) {
-        if (!manager.addToRegion(JSON_ATOM, new Key(name), Collections.singleton(object.toJSONString())))
-            manager.replaceInRegion(JSON_ATOM, new Key(name), Collections.singleton(object.toJSONString()));
+    public synchronized boolean addJSONObject(String name, JSONObject object) {
+        log(WriteAheadLog.Operation.PUT, JSON_ATOM, name, Collections.singleton(object.toJSONString()));
         return objects.put(name, object) == null;
     }
-    public boolean removeJSONObject(String name) {
-        boolean success1 = manager.removeFromRegion(JSON_ATOM, new Key(name));
-        boolean success2 = objects.remove(name) != null;
-        // Return true if both are true, return false otherwise
-        return success1 && success2;
+    public synchronized boolean removeJSONObject(String name) {
+        boolean removed = objects.remove(name) != null;
+        if (removed) log(WriteAheadLog.Operation.REMOVE, JSON_ATOM, name, Collections.emptySet());
+        return removed;
     }
 
     // Members
+    /**
+     * @return The names of the members, not including the restorator ones
+     */
     public Set<String> getMemberNames() {
         return Collections.unmodifiableSet(members.keySet());
     }
     public Set<String> getMemberData(String name) {
-        return members.get(name);
+        long memberID = restoratorKey(name);
+        if (memberID == Snowflake.INVALID) return members.get(name);
+        long[] roles = getRestoratorRoles(memberID);
+        if (roles == null) return null;
+        Set<String> data = new HashSet<>();
+        for (long roleID : roles) data.add(Snowflake.toString(roleID));
+        return data;
     }
     /**
      * @return {@code true} if the member wasn't previously in, {@code false} otherwise
      */
-    public boolean addMember(String name) {
-        if (!manager.addToRegion(MEMBER_ATOM, new Key(name), Collections.emptySet()))
-            manager.replaceInRegion(MEMBER_ATOM, new Key(name), Collections.emptySet());
-        return members.put(name, new HashSet<>()) == null;
+    public synchronized boolean addMember(String name) {
+        long memberID = restoratorKey(name);
+        if (memberID != Snowflake.INVALID) return addRestoratorMember(memberID);
+        log(WriteAheadLog.Operation.PUT, MEMBER_ATOM, name, Collections.emptySet());
+        return members.put(name, ConcurrentHashMap.newKeySet()) == null;
     }
 
     /**
      * @return {@code true} if the member didn't already have the data and said data was added successfully,
      * {@code false} otherwise
      */
-    public boolean addToMember(String name, String data) {
-        Atom atom = manager.getRegion(MEMBER_ATOM);
-        // Only update region if something actually changed
-        if (atom.getItem(new Key(name)).add(data)) manager.replaceRegion(atom);
-        return members.get(name).add(data);
-    }
-    public boolean removeMember(String name) {
-        boolean success1 = manager.removeFromRegion(MEMBER_ATOM, new Key(name));
-        boolean success2 = members.remove(name) != null;
-        // Return true if both are true, return false otherwise
-        return success1 && success2;
-    }
-    public boolean removeFromMember(String name, String data) {
-        Atom atom = manager.getRegion(MEMBER_ATOM);
-        boolean success1 = atom.getItem(new Key(data)).remove(data);
-        // Only update region if something actually changed
-        if (success1) manager.replaceRegion(atom);
-        boolean success2 = members.get(name).remove(data);
-        // Return true if both are true, return false otherwise
-        return success1 && success2;
+    public synchronized boolean addToMember(String name, String data) {
+        long memberID = restoratorKey(name);
+        if (memberID != Snowflake.INVALID) return addToRestoratorMember(memberID, Snowflake.parse(data));
+        Set<String> memberData = members.get(name);
+        if (memberData == null) return false;
+        boolean added = memberData.add(data);
+        if (added) log(WriteAheadLog.Operation.ADD_VALUE, MEMBER_ATOM, name, Collections.singleton(data));
+        return added;
+    }
+    public synchronized boolean removeMember(String name) {
+        long memberID = restoratorKey(name);
+        if (memberID != Snowflake.INVALID) return removeRestoratorMember(memberID);
+        boolean removed = members.remove(name) != null;
+        if (removed) log(WriteAheadLog.Operation.REMOVE, MEMBER_ATOM, name, Collections.emptySet());
+        return removed;
+    }
+    public synchronized boolean removeFromMember(String name, String data) {
+        long memberID = restoratorKey(name);
+        if (memberID != Snowflake.INVALID) return removeFromRestoratorMember(memberID, Snowflake.parse(data));
+        Set<String> memberData = members.get(name);
+        if (memberData == null) return false;
+        boolean removed = memberData.remove(data);
+        if (removed) log(WriteAheadLog.Operation.REMOVE_VALUE, MEMBER_ATOM, name, Collections.singleton(data));
+        return removed;
+    }
+
+    // Restorator
+    public synchronized boolean isRestoratorMember(long memberID) {
+        return restorator.contains(memberID);
+    }
+    /**
+     * @return A copy of the roles saved for the member, or {@code null} if the member isn't registered
+     */
+    public synchronized long[] getRestoratorRoles(long memberID) {
+        return restorator.roles(memberID);
+    }
+    public synchronized boolean hasRestoratorRole(long memberID, long roleID) {
+        return restorator.hasRole(memberID, roleID);
+    }
+    public synchronized long[] getRestoratorMemberIDs() {
+        return restorator.memberIDs();
+    }
+    public synchronized int getRestoratorMemberCount() {
+        return restorator.size();
+    }
+    /**
+     * @return Report of the memory taken by the restorator entries
+     */
+    public synchronized String getRestoratorFootprint() {
+        return restorator.footprint();
+    }
+    /**
+     * @return {@code true} if the member wasn't previously in, {@code false} otherwise
+     */
+    public synchronized boolean addRestoratorMember(long memberID) {
+        if (memberID == Snowflake.INVALID) return false;
+        log(WriteAheadLog.Operation.PUT, MEMBER_ATOM, restoratorName(memberID), Collections.emptySet());
+        return restorator.addMember(memberID);
+    }
+    public synchronized boolean removeRestoratorMember(long memberID) {
+        boolean removed = restorator.removeMember(memberID);
+        if (removed) log(WriteAheadLog.Operation.REMOVE, MEMBER_ATOM, restoratorName(memberID), Collections.emptySet());
+        return removed;
+    }
+    /**
+     * @return {@code true} if the member is registered and didn't already have the role, {@code false} otherwise
+     */
+    public synchronized boolean addToRestoratorMember(long memberID, long roleID) {
+        if (roleID == Snowflake.INVALID) return false;
+        boolean added = restorator.addRole(memberID, roleID);
+        if (added) log(WriteAheadLog.Operation.ADD_VALUE, MEMBER_ATOM, restoratorName(memberID), Collections.singleton(Snowflake.toString(roleID)));
+        return added;
+    }
+    public synchronized boolean removeFromRestoratorMember(long memberID, long roleID) {
+        boolean removed = restorator.removeRole(memberID, roleID);
+        if (removed) log(WriteAheadLog.Operation.REMOVE_VALUE, MEMBER_ATOM, restoratorName(memberID), Collections.singleton(Snowflake.toString(roleID)));
+        return removed;
+    }
+
+    /**
+     * @return The member ID of a restorator entry name, or {@link Snowflake#INVALID} if it's a regular member
+     */
+    private static long restoratorKey(String name) {
+        int prefixLength = PREFIX_RESTORATOR_MEMBERS.length();
+        if (name.length() <= prefixLength + 1 || !name.startsWith(PREFIX_RESTORATOR_MEMBERS) || name.charAt(prefixLength) != '.')
+            return Snowflake.INVALID;
+        return Snowflake.parse(name.substring(prefixLength + 1));
+    }
+    private static String restoratorName(long memberID) {
+        return PREFIX_RESTORATOR_MEMBERS + "." + memberID;
+    }
+
+    // Reminders
+    /**
+     * @return A copy of every pending reminder
+     */
+    public List<ReminderTimerEvent> getReminders() {
+        return new ArrayList<>(reminders.values());
+    }
+    public int getReminderCount() {
+        return reminders.size();
+    }
+    /**
+     * @return {@code true} if the reminder wasn't previously in, {@code false} otherwise
+     */
+    public synchronized boolean addReminder(ReminderTimerEvent reminder) {
+        String id = Long.toString(reminder.getId());
+        log(WriteAheadLog.Operation.PUT, REMINDER_ATOM, id, reminderValues(reminder));
+        return reminders.put(id, reminder) == null;
+    }
+    public synchronized boolean removeReminder(String id) {
+        boolean removed = reminders.remove(id) != null;
+        if (removed) log(WriteAheadLog.Operation.REMOVE, REMINDER_ATOM, id, Collections.emptySet());
+        return removed;
     }
 
     // Identifier shortcuts
@@ -316,46 +807,15 @@ public class DataManagementProcessor {
         return removeIdentifier(PREFIX_ROLES + "." + name);
     }
 
-    public Set<String> getRestoratorRoles(String memberID) {
-        return members.get(PREFIX_RESTORATOR_MEMBERS + "." + memberID);
-    }
-    public boolean addRestoratorMember(String memberID) {
-        return addMember(PREFIX_RESTORATOR_MEMBERS + "." + memberID);
-    }
-    public boolean removeRestoratorMember(String memberID) {
-        return removeMember(PREFIX_RESTORATOR_MEMBERS + "." + memberID);
-    }
-    public boolean addToRestoratorMember(String memberID, String roleID) {
-        return addToMember(PREFIX_RESTORATOR_MEMBERS + "." + memberID, roleID);
-    }
-    public boolean removeFromRestoratorMember(String memberID, String roleID) {
-        return removeFromMember(PREFIX_RESTORATOR_MEMBERS + "." + memberID, roleID);
-    }
-
     // Custom requests
     private Set<String> getIdsFromPrefix(String prefix) {
-        return identifiers.entrySet()
-                .stream()
-                .filter(entry -> entry.getKey().startsWith(prefix))
-                .map(Map.Entry::getValue)
-                .collect(Collectors.toSet());
+        return identifierIndex.ids(prefix);
     }
     private Set<String> getNamesFromPrefix(String prefix) {
-        return identifiers.keySet()
-                .stream()
-                .filter(name -> name.startsWith(prefix))
-                .map(name -> name.replace(prefix + ".", ""))
-                .collect(Collectors.toSet());
-    }
-    private Set<String> getMembersFromPrefix(String prefix) {
-        return getMemberNames()
-                .stream()
-                .filter(name -> name.startsWith(prefix))
-                .map(name -> name.replace(prefix + ".", ""))
-                .collect(Collectors.toSet());
+        return identifierIndex.names(prefix);
     }
 
-    public String getBotOwner() {return "265904613687820288";}
+    public String getBotOwner() {return Snowflake.toString(BOT_OWNER_ID);}
     public Set<String> getBlacklistedUsers() {
         return getIdsFromPrefix(PREFIX_BLACKLISTED_USER);
     }
@@ -368,13 +828,22 @@ public class DataManagementProcessor {
     public Set<String> getHelperIDs() {
         return getIdsFromPrefix(PREFIX_HELPERS);
     }
+    public boolean isBotOwner(long id) {
+        return id == BOT_OWNER_ID;
+    }
+    public boolean isAdministrator(long id) {
+        return identifierIndex.contains(PREFIX_ADMINISTRATORS, id);
+    }
+    public boolean isHelper(long id) {
+        return identifierIndex.contains(PREFIX_HELPERS, id);
+    }
+    public boolean isBlacklistedUser(long id) {
+        return identifierIndex.contains(PREFIX_BLACKLISTED_USER, id);
+    }
     public List<String> getSortedIdentifierNames() {
         return identifiers.keySet()
                 .stream()
                 .sorted()
                 .collect(Collectors.toList());
     }
-    public Set<String> getRestoratorMemberIDs() {
-        return getMembersFromPrefix(PREFIX_RESTORATOR_MEMBERS);
-    }
 }
@@ -0,0 +1,97 @@
+package processers.persistence;
+
+import util.LongIntHashMap;
+import util.Snowflake;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>Groups identifiers by their prefix (the part of the name before the first dot).</p>
+ * Keeps, for every prefix, the set of names under it and how many of those names point to each ID. Checking if an
+ * ID is under a prefix is a single lookup instead of a scan of every identifier. Several names may share an ID, so an
+ * ID only leaves its prefix once the last name pointing to it is gone.
+ * <p>Discord IDs are counted in a primitive map per prefix, which is copied and replaced on every change, so checks
+ * (made on every command) never take a lock. Identifiers that aren't Discord IDs are counted apart.</p>
+ */
+class IdentifierIndex {
+
+    private static final LongIntHashMap NONE = new LongIntHashMap(0);
+
+    private final Map<String, LongIntHashMap> snowflakes = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Integer>> others = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> names = new ConcurrentHashMap<>();
+
+    // Changes are made under the lock of the processor
+    void add(String name, String id) {
+        String prefix = prefixOf(name);
+        if (prefix == null) return;
+        update(prefix, id, 1);
+        names.computeIfAbsent(prefix, p -> ConcurrentHashMap.newKeySet()).add(name.substring(prefix.length() + 1));
+    }
+
+    void remove(String name, String id) {
+        String prefix = prefixOf(name);
+        if (prefix == null) return;
+        update(prefix, id, -1);
+        Set<String> prefixNames = names.get(prefix);
+        if (prefixNames != null) prefixNames.remove(name.substring(prefix.length() + 1));
+    }
+
+    boolean contains(String prefix, long id) {
+        return snowflakes.getOrDefault(prefix, NONE).containsKey(id);
+    }
+
+    boolean contains(String prefix, String id) {
+        if (id == null) return false;
+        long snowflake = Snowflake.parse(id);
+        if (snowflake != Snowflake.INVALID) return contains(prefix, snowflake);
+        Map<String, Integer> prefixIds = others.get(prefix);
+        return prefixIds != null && prefixIds.containsKey(id);
+    }
+
+    /**
+     * @return Read-only copy of the IDs under the prefix
+     */
+    Set<String> ids(String prefix) {
+        Set<String> result = new HashSet<>();
+        for (long id : snowflakes.getOrDefault(prefix, NONE).keys()) result.add(Snowflake.toString(id));
+        Map<String, Integer> prefixIds = others.get(prefix);
+        if (prefixIds != null) result.addAll(prefixIds.keySet());
+        return Collections.unmodifiableSet(result);
+    }
+
+    /**
+     * @return Live, read-only view of the names under the prefix, without the prefix
+     */
+    Set<String> names(String prefix) {
+        Set<String> prefixNames = names.get(prefix);
+        return prefixNames == null ? Collections.emptySet() : Collections.unmodifiableSet(prefixNames);
+    }
+
+    private void update(String prefix, String id, int delta) {
+        long snowflake = Snowflake.parse(id);
+        if (snowflake == Snowflake.INVALID) {
+            if (delta > 0) others.computeIfAbsent(prefix, p -> new ConcurrentHashMap<>()).merge(id, 1, Integer::sum);
+            else {
+                Map<String, Integer> prefixIds = others.get(prefix);
+                if (prefixIds != null) prefixIds.computeIfPresent(id, (k, count) -> count == 1 ? null : count - 1);
+            }
+            return;
+        }
+        LongIntHashMap current = snowflakes.get(prefix);
+        if (current == null && delta < 0) return;
+        LongIntHashMap updated = current == null ? new LongIntHashMap() : current.copy();
+        if (delta < 0 && !updated.containsKey(snowflake)) return;
+        updated.addTo(snowflake, delta);
+        snowflakes.put(prefix, updated);
+    }
+
+    private static String prefixOf(String name) {
+        int dot = name.indexOf('.');
+        return dot == -1 ? null : name.substring(0, dot);
+    }
+}
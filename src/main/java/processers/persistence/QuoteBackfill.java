@@ -0,0 +1,82 @@
+package processers.persistence;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.TextChannel;
+import util.Quote;
+import util.TokenBucket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * <p>Caches the content of quotes saved before quote content was stored.</p>
+ * Quotes without content are fetched in batches: every request in a batch takes a permit from a token bucket, and the
+ * next batch only starts once the whole previous one answered, so the job never competes with commands for the rate
+ * limits. Quotes whose message or channel is gone are left as they are and skipped.
+ */
+public class QuoteBackfill implements Runnable {
+
+    private static final String CMD_HEADER = "(BACKFILL) ";
+    private static final int BATCH_SIZE = 25;
+    private static final int BURST_REQUESTS = 5;
+    private static final int REQUESTS_PER_SECOND = 2;
+
+    private final Guild guild;
+    private final DataManagementProcessor dmp;
+    private final TokenBucket requests = new TokenBucket(BURST_REQUESTS, REQUESTS_PER_SECOND, 1, TimeUnit.SECONDS);
+
+    public QuoteBackfill(Guild guild, DataManagementProcessor dmp) {
+        this.guild = guild;
+        this.dmp = dmp;
+    }
+
+    /**
+     * <p>Runs the backfill on its own daemon thread.</p>
+     */
+    public Thread start() {
+        Thread t = new Thread(this, "quote-backfill");
+        t.setDaemon(true);
+        t.start();
+        return t;
+    }
+
+    @Override
+    public void run() {
+        List<Quote> missing = dmp.getQuotes().stream().filter(q -> !q.hasContent()).collect(Collectors.toList());
+        if (missing.isEmpty()) return;
+        System.out.println(CMD_HEADER + missing.size() + " quotes without cached content, fetching them.");
+
+        int cached = 0, failed = 0;
+        try {
+            for (int i = 0; i < missing.size(); i += BATCH_SIZE) {
+                List<CompletableFuture<Boolean>> batch = new ArrayList<>(BATCH_SIZE);
+                for (Quote q : missing.subList(i, Math.min(i + BATCH_SIZE, missing.size()))) {
+                    requests.acquire();
+                    batch.add(fetch(q));
+                }
+                for (CompletableFuture<Boolean> result : batch) {
+                    if (result.join()) cached++;
+                    else failed++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.println(CMD_HEADER + "Done. " + cached + " quotes cached, " + failed + " unreachable.");
+    }
+
+    private CompletableFuture<Boolean> fetch(Quote q) {
+        TextChannel channel = guild.getTextChannelById(q.getChannel());
+        if (channel == null) return CompletableFuture.completedFuture(false);
+        return channel.retrieveMessageById(q.getId()).submit()
+                .thenApply((Message m) -> dmp.cacheQuoteContent(q.getId(), m.getContentRaw()))
+                .exceptionally(e -> {
+                    System.err.println(CMD_HEADER + "WARNING: Unable to fetch quote " + q.getId() + ": " + e.getMessage());
+                    return false;
+                });
+    }
+}
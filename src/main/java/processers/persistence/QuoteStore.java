@@ -0,0 +1,69 @@
+package processers.persistence;
+
+import util.LongIntHashMap;
+import util.Quote;
+import util.Snowflake;
+
+import java.util.*;
+
+/**
+ * <p>Quote container with constant time lookup, removal and uniform random selection.</p>
+ * Quotes live in a dense list, and an ID index maps every quote to its position in it. Removing a quote moves the
+ * last quote into the freed slot, so the list never has gaps and a random position is always a valid quote. The index is
+ * keyed by the message ID as a {@code long}.
+ */
+class QuoteStore {
+
+    private final List<Quote> quotes = new ArrayList<>();
+    private final LongIntHashMap positions = new LongIntHashMap();
+
+    /**
+     * @return {@code true} if the quote wasn't previously in, {@code false} if it replaced an existing one or its ID
+     * isn't a message ID
+     */
+    synchronized boolean put(Quote quote) {
+        long id = Snowflake.parse(quote.getId());
+        if (id == Snowflake.INVALID) {
+            System.err.println("(DMP) WARNING: Quote ID \"" + quote.getId() + "\" isn't a message ID, ignoring it.");
+            return false;
+        }
+        int position = positions.get(id, -1);
+        if (position != -1) {
+            quotes.set(position, quote);
+            return false;
+        }
+        positions.put(id, quotes.size());
+        quotes.add(quote);
+        return true;
+    }
+
+    synchronized Quote get(String id) {
+        int position = positions.get(Snowflake.parse(id), -1);
+        return position == -1 ? null : quotes.get(position);
+    }
+
+    synchronized boolean remove(String id) {
+        long key = Snowflake.parse(id);
+        int position = positions.get(key, -1);
+        if (position == -1) return false;
+        positions.remove(key);
+        Quote last = quotes.remove(quotes.size() - 1);
+        if (position != quotes.size()) {
+            quotes.set(position, last);
+            positions.put(Snowflake.parse(last.getId()), position);
+        }
+        return true;
+    }
+
+    synchronized Quote random(Random random) {
+        return quotes.isEmpty() ? null : quotes.get(random.nextInt(quotes.size()));
+    }
+
+    synchronized int size() {
+        return quotes.size();
+    }
+
+    synchronized List<Quote> copy() {
+        return new ArrayList<>(quotes);
+    }
+}
@@ -0,0 +1,151 @@
+package processers.persistence;
+
+import util.LongIntHashMap;
+import util.LongObjectHashMap;
+
+import java.util.Arrays;
+
+/**
+ * <p>Role restorator entries: the roles saved for every member, so they can be given back if the member rejoins.</p>
+ * Every role ID is interned once to a small index, and a member's roles are kept as a bitset over those indexes. A
+ * guild can't have more than a few hundred roles, so a member usually takes a single {@code long} of role data no
+ * matter how many roles they have, instead of a set of role ID strings. Interned roles are never forgotten, as they're
+ * bounded by the roles the guild ever had. Not thread safe.
+ */
+class RestoratorStore {
+
+    private static final long[] NO_ROLES = new long[0];
+    // Rough cost of the same data as ConcurrentHashMap backed sets of ID strings, for the footprint report
+    private static final int STRING_SET_BYTES_PER_MEMBER = 200, STRING_SET_BYTES_PER_ROLE = 96;
+
+    // Member ID -> bitset over the role indexes
+    private final LongObjectHashMap<long[]> members = new LongObjectHashMap<>();
+    // Role ID <-> role index
+    private final LongIntHashMap roleIndexes = new LongIntHashMap();
+    private long[] roleIDs = new long[64];
+    private int roleCount;
+
+    boolean contains(long memberID) {
+        return members.containsKey(memberID);
+    }
+
+    /**
+     * <p>Registers the member with no roles, replacing the roles previously saved for them.</p>
+     *
+     * @return {@code true} if the member wasn't previously in, {@code false} otherwise
+     */
+    boolean addMember(long memberID) {
+        return members.put(memberID, NO_ROLES) == null;
+    }
+
+    boolean removeMember(long memberID) {
+        return members.remove(memberID) != null;
+    }
+
+    /**
+     * @return {@code true} if the member is registered and didn't already have the role, {@code false} otherwise
+     */
+    boolean addRole(long memberID, long roleID) {
+        long[] bits = members.get(memberID);
+        if (bits == null) return false;
+        int index = intern(roleID);
+        int word = index >>> 6;
+        if (word >= bits.length) {
+            bits = Arrays.copyOf(bits, word + 1);
+            members.put(memberID, bits);
+        }
+        long mask = 1L << index;
+        if ((bits[word] & mask) != 0) return false;
+        bits[word] |= mask;
+        return true;
+    }
+
+    boolean removeRole(long memberID, long roleID) {
+        long[] bits = members.get(memberID);
+        int index = roleIndexes.get(roleID, -1);
+        if (bits == null || index == -1 || (index >>> 6) >= bits.length) return false;
+        long mask = 1L << index;
+        if ((bits[index >>> 6] & mask) == 0) return false;
+        bits[index >>> 6] &= ~mask;
+        return true;
+    }
+
+    boolean hasRole(long memberID, long roleID) {
+        long[] bits = members.get(memberID);
+        int index = roleIndexes.get(roleID, -1);
+        return bits != null && index != -1 && (index >>> 6) < bits.length && (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * @return The roles saved for the member, or {@code null} if the member isn't registered
+     */
+    long[] roles(long memberID) {
+        long[] bits = members.get(memberID);
+        return bits == null ? null : decode(bits);
+    }
+
+    long[] memberIDs() {
+        return members.keys();
+    }
+
+    int size() {
+        return members.size();
+    }
+
+    /**
+     * <p>Calls the action with every member and a fresh array of their roles.</p>
+     */
+    void forEach(LongObjectHashMap.EntryConsumer<long[]> action) {
+        members.forEach((memberID, bits) -> action.accept(memberID, decode(bits)));
+    }
+
+    /**
+     * @return Human readable report of the memory taken by the store
+     */
+    String footprint() {
+        long[] totals = new long[2]; // Role assignments, bitset bytes
+        members.forEach((memberID, bits) -> {
+            for (long word : bits) totals[0] += Long.bitCount(word);
+            if (bits.length != 0) totals[1] += 16 + 8L * bits.length;
+        });
+        long memberTable = members.tableBytes();
+        long roleTables = roleIndexes.tableBytes() + 16 + 8L * roleIDs.length;
+        long total = memberTable + totals[1] + roleTables;
+        long asStrings = (long) members.size() * STRING_SET_BYTES_PER_MEMBER + totals[0] * STRING_SET_BYTES_PER_ROLE;
+        return "Members: " + members.size() +
+                "\nRole assignments: " + totals[0] +
+                "\nInterned roles: " + roleCount +
+                "\nMember table: " + kilobytes(memberTable) +
+                "\nRole bitsets: " + kilobytes(totals[1]) +
+                "\nRole tables: " + kilobytes(roleTables) +
+                "\nTotal: " + kilobytes(total) +
+                (totals[0] == 0 ? "" : " (" + total / totals[0] + " bytes per assignment)") +
+                "\nAs sets of ID strings: ~" + kilobytes(asStrings);
+    }
+
+    private int intern(long roleID) {
+        int index = roleIndexes.get(roleID, -1);
+        if (index != -1) return index;
+        if (roleCount == roleIDs.length) roleIDs = Arrays.copyOf(roleIDs, roleCount * 2);
+        roleIDs[roleCount] = roleID;
+        roleIndexes.put(roleID, roleCount);
+        return roleCount++;
+    }
+
+    private long[] decode(long[] bits) {
+        int count = 0;
+        for (long word : bits) count += Long.bitCount(word);
+        long[] roles = new long[count];
+        int n = 0;
+        for (int word = 0; word != bits.length; word++) {
+            for (long rest = bits[word]; rest != 0; rest &= rest - 1) {
+                roles[n++] = roleIDs[(word << 6) + Long.numberOfTrailingZeros(rest)];
+            }
+        }
+        return roles;
+    }
+
+    private static String kilobytes(long bytes) {
+        return String.format("%.1f KB", bytes / 1024.0);
+    }
+}
@@ -0,0 +1,245 @@
+package processers.persistence;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * <p>Append-only log of database mutations.</p>
+ * Every mutation is appended as a length-prefixed, checksummed record. Appends only reach the OS buffer; a background
+ * thread flushes and fsyncs them every {@code fsyncInterval} milliseconds, so a burst of mutations shares a single
+ * fsync (group commit). An interval of 0 fsyncs on every append instead. On startup, {@link #replay(Consumer)} feeds
+ * every intact record back to the caller, dropping a torn record at the end of the file if the last write was cut
+ * short.
+ */
+class WriteAheadLog implements Closeable {
+
+    private static final String CMD_HEADER = "(WAL) ";
+    // Anything bigger than this is treated as a corrupt length field rather than a real record
+    private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+
+    enum Operation {
+        /** Adds or replaces the key with the given values. */
+        PUT,
+        /** Removes the key. */
+        REMOVE,
+        /** Adds the single given value to the key's values. */
+        ADD_VALUE,
+        /** Removes the single given value from the key's values. */
+        REMOVE_VALUE
+    }
+
+    static class Record {
+        private final Operation operation;
+        private final String region;
+        private final String key;
+        private final List<String> values;
+
+        Record(Operation operation, String region, String key, List<String> values) {
+            this.operation = operation;
+            this.region = region;
+            this.key = key;
+            this.values = values;
+        }
+
+        Operation getOperation() {
+            return operation;
+        }
+
+        String getRegion() {
+            return region;
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        List<String> getValues() {
+            return values;
+        }
+    }
+
+    interface Consumer {
+        void accept(Record record);
+    }
+
+    private final File file;
+    private final FileChannel channel;
+    private final OutputStream out;
+    private final long fsyncIntervalMillis;
+    private final ScheduledExecutorService flusher;
+    private boolean dirty;
+
+    private final CRC32 crc = new CRC32();
+    private final ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream(256);
+    private final DataOutputStream recordOut = new DataOutputStream(recordBuffer);
+
+    WriteAheadLog(File file, long fsyncIntervalMillis) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.channel.position(channel.size());
+        this.out = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+        if (fsyncIntervalMillis > 0) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "wal-flusher");
+                t.setDaemon(true);
+                return t;
+            });
+            flusher.scheduleWithFixedDelay(() -> {
+                try {
+                    sync();
+                } catch (IOException e) {
+                    System.err.println(CMD_HEADER + "ERROR: Unable to sync the log. Trace below:");
+                    e.printStackTrace();
+                }
+            }, fsyncIntervalMillis, fsyncIntervalMillis, TimeUnit.MILLISECONDS);
+        } else this.flusher = null;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    synchronized void append(Operation operation, String region, String key, Collection<String> values) throws IOException {
+        recordBuffer.reset();
+        recordOut.writeByte(operation.ordinal());
+        writeString(recordOut, region);
+        writeString(recordOut, key);
+        recordOut.writeInt(values.size());
+        for (String value : values) writeString(recordOut, value);
+        recordOut.flush();
+
+        crc.reset();
+        crc.update(recordBuffer.toByteArray(), 0, recordBuffer.size());
+        writeInt(recordBuffer.size());
+        writeInt((int) crc.getValue());
+        recordBuffer.writeTo(out);
+        dirty = true;
+
+        if (fsyncIntervalMillis <= 0) sync();
+    }
+
+    /**
+     * <p>Flushes buffered records and forces them to disk.</p>
+     */
+    synchronized void sync() throws IOException {
+        if (!dirty) return;
+        out.flush();
+        channel.force(false);
+        dirty = false;
+    }
+
+    /**
+     * <p>Discards every record. Used once their effects are safely stored elsewhere.</p>
+     */
+    synchronized void truncate() throws IOException {
+        out.flush();
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+        dirty = false;
+    }
+
+    /**
+     * <p>Moves every record to the end of {@code target} and empties this log.</p>
+     * Used to seal the records covered by a snapshot while new mutations keep coming into this log. If
+     * {@code target} still holds the records of a previous, failed snapshot, they are kept in front.
+     */
+    synchronized void rotate(File target) throws IOException {
+        out.flush();
+        try (FileChannel sealed = FileChannel.open(target.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            long size = channel.size();
+            for (long position = 0; position < size; )
+                position += channel.transferTo(position, size - position, sealed);
+            sealed.force(false);
+        }
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+        dirty = false;
+    }
+
+    /**
+     * <p>Feeds every intact record to {@code consumer}, in the order they were appended.</p>
+     * @return The amount of records replayed
+     */
+    synchronized int replay(Consumer consumer) throws IOException {
+        out.flush();
+        long size = channel.size();
+        long position = 0;
+        int replayed = 0;
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(0))));
+        try {
+            while (position + 8 <= size) {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length < 0 || length > MAX_RECORD_SIZE || position + 8 + length > size) break;
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != checksum) break;
+
+                consumer.accept(readRecord(payload));
+                position += 8 + length;
+                replayed++;
+            }
+        } finally {
+            channel.position(channel.size());
+        }
+        if (position != size) {
+            System.err.println(CMD_HEADER + "WARNING: Discarding " + (size - position) + " bytes of incomplete or corrupt records at the end of " + file.getName() + ".");
+            channel.truncate(position);
+            channel.position(position);
+        }
+        return replayed;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (flusher != null) flusher.shutdownNow();
+        dirty = true;
+        sync();
+        channel.close();
+    }
+
+    private void writeInt(int v) throws IOException {
+        out.write(v >>> 24);
+        out.write(v >>> 16);
+        out.write(v >>> 8);
+        out.write(v);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static Record readRecord(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        Operation operation = Operation.values()[buffer.get()];
+        String region = readString(buffer);
+        String key = readString(buffer);
+        int count = buffer.getInt();
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i != count; i++) values.add(readString(buffer));
+        return new Record(operation, region, key, values);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        String s = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return s;
+    }
+}
@@ -0,0 +1,115 @@
+package util;
+
+import java.util.*;
+
+/**
+ * <p>Aho-Corasick automaton over a fixed set of literal patterns.</p>
+ * A single left-to-right pass over the text reports every occurrence of every pattern. The automaton is immutable
+ * once built, so it can be shared between threads freely.
+ */
+public class AhoCorasick {
+
+    /**
+     * <p>Receives the pattern index and the start/end (exclusive) offsets of each occurrence.</p>
+     */
+    public interface MatchListener {
+        void onMatch(int pattern, int start, int end);
+    }
+
+    // Per state: sorted transition characters and their target states
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] failure;
+    // Per state: every pattern ending here, including the ones reached through failure links
+    private final int[][] outputs;
+    private final int[] patternLengths;
+
+    public AhoCorasick(List<String> patterns) {
+        List<Map<Character, Integer>> gotoTable = new ArrayList<>();
+        List<List<Integer>> out = new ArrayList<>();
+        gotoTable.add(new TreeMap<>());
+        out.add(new ArrayList<>());
+        patternLengths = new int[patterns.size()];
+
+        // Trie
+        for (int p = 0; p != patterns.size(); p++) {
+            String pattern = patterns.get(p);
+            patternLengths[p] = pattern.length();
+            int state = 0;
+            for (int i = 0; i != pattern.length(); i++) {
+                Integer next = gotoTable.get(state).get(pattern.charAt(i));
+                if (next == null) {
+                    next = gotoTable.size();
+                    gotoTable.add(new TreeMap<>());
+                    out.add(new ArrayList<>());
+                    gotoTable.get(state).put(pattern.charAt(i), next);
+                }
+                state = next;
+            }
+            out.get(state).add(p);
+        }
+
+        int states = gotoTable.size();
+        edgeChars = new char[states][];
+        edgeTargets = new int[states][];
+        for (int s = 0; s != states; s++) {
+            Map<Character, Integer> edges = gotoTable.get(s);
+            edgeChars[s] = new char[edges.size()];
+            edgeTargets[s] = new int[edges.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> e : edges.entrySet()) {
+                edgeChars[s][i] = e.getKey();
+                edgeTargets[s][i] = e.getValue();
+                i++;
+            }
+        }
+
+        // Failure links (breadth first, so shallower states are always resolved first)
+        failure = new int[states];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int target : edgeTargets[0]) queue.add(target);
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int i = 0; i != edgeChars[state].length; i++) {
+                char c = edgeChars[state][i];
+                int child = edgeTargets[state][i];
+                int f = failure[state];
+                while (f != 0 && step(f, c) < 0) f = failure[f];
+                int fallback = step(f, c);
+                failure[child] = fallback < 0 || fallback == child ? 0 : fallback;
+                out.get(child).addAll(out.get(failure[child]));
+                queue.add(child);
+            }
+        }
+
+        outputs = new int[states][];
+        for (int s = 0; s != states; s++) {
+            List<Integer> o = out.get(s);
+            outputs[s] = new int[o.size()];
+            for (int i = 0; i != o.size(); i++) outputs[s][i] = o.get(i);
+        }
+    }
+
+    public int patternCount() {
+        return patternLengths.length;
+    }
+
+    /**
+     * <p>Reports every occurrence of every pattern inside {@code text}.</p>
+     */
+    public void scan(CharSequence text, MatchListener listener) {
+        int state = 0;
+        for (int i = 0; i != text.length(); i++) {
+            char c = text.charAt(i);
+            int next;
+            while ((next = step(state, c)) < 0 && state != 0) state = failure[state];
+            state = next < 0 ? 0 : next;
+            for (int p : outputs[state]) listener.onMatch(p, i + 1 - patternLengths[p], i + 1);
+        }
+    }
+
+    private int step(int state, char c) {
+        int i = Arrays.binarySearch(edgeChars[state], c);
+        return i < 0 ? -1 : edgeTargets[state][i];
+    }
+}
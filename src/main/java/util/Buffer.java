@@ -1,101 +1,363 @@
 package util;
 
-public class Buffer<T> { // TODO add a queue
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
-    private boolean hasData;
-    private int opcode;
-    private T data;
+/**
+ * <p>Bounded multi-producer/multi-consumer queue of (opcode, data) entries.</p>
+ * Entries are stored in a fixed-size ring. The blocking {@code queue} methods wait for free space, while
+ * {@link #offer(int, Object)} never blocks for longer than the configured timeout and applies the buffer's
+ * {@link OverflowPolicy} when it's full.
+ */
+public class Buffer<T> {
+
+    /**
+     * <p>What {@link #offer(int, Object)} does when the buffer is full.</p>
+     */
+    public enum OverflowPolicy {
+        /** Evicts the oldest queued entry to make room for the new one. */
+        DROP_OLDEST,
+        /** Refuses the new entry straight away. */
+        REJECT,
+        /** Waits up to the configured timeout for room, then refuses the new entry. */
+        BLOCK
+    }
+
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final int[] opcodes;
+    private final Object[] items;
+    private final long[] queuedAt;
+    private int head;
+    private int tail;
+    private int count;
+
+    private final OverflowPolicy policy;
+    private final long offerTimeoutNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    // Metrics (guarded by lock)
+    private long offered;
+    private long taken;
+    private long dropped;
+    private long rejected;
+    private int maxDepth;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
 
     public Buffer() {
-        this.opcode = 0;
-        hasData = false;
+        this(DEFAULT_CAPACITY);
     }
 
-    // Basic insertion functions
-    public synchronized void queue(int opcode) {
-        while (hasData) try {
-            wait();
-            notifyAll();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+    public Buffer(int capacity) {
+        this(capacity, OverflowPolicy.BLOCK, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param capacity      Maximum amount of queued entries.
+     * @param policy        Policy applied by {@link #offer(int, Object)} when the buffer is full.
+     * @param offerTimeout  Maximum time {@link #offer(int, Object)} waits for room under {@link OverflowPolicy#BLOCK}.
+     * @param unit          Unit of {@code offerTimeout}.
+     */
+    public Buffer(int capacity, OverflowPolicy policy, long offerTimeout, TimeUnit unit) {
+        if (capacity < 1) throw new IllegalArgumentException("Buffer capacity must be positive, got " + capacity);
+        this.opcodes = new int[capacity];
+        this.items = new Object[capacity];
+        this.queuedAt = new long[capacity];
+        this.policy = policy;
+        this.offerTimeoutNanos = unit.toNanos(offerTimeout);
+    }
+
+    // Basic insertion functions (block until there's room)
+    public void queue(int opcode) {
+        queue(opcode, null);
+    }
+
+    public void queue(T data) {
+        queue(0, data);
+    }
+
+    public void queue(int opcode, T data) {
+        lock.lock();
+        try {
+            while (count == items.length) try {
+                notFull.await();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+            offered++;
+            enqueue(opcode, data);
+        } finally {
+            lock.unlock();
         }
-        this.opcode = opcode;
-        this.hasData = true;
-        notify();
     }
 
-    public synchronized void queue(int opcode, T data) {
-        while (hasData) try {
-            wait();
-            notifyAll();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+    // Override insertion functions (never block, replace the newest entry if there's no room)
+    public void queueOverride(int opcode) {
+        queueOverride(opcode, null);
+    }
+
+    public void queueOverride(T data) {
+        queueOverride(0, data);
+    }
+
+    public void queueOverride(int opcode, T data) {
+        lock.lock();
+        try {
+            offered++;
+            if (count == items.length) {
+                int newest = dec(tail);
+                opcodes[newest] = opcode;
+                items[newest] = data;
+                queuedAt[newest] = System.nanoTime();
+                dropped++;
+            } else enqueue(opcode, data);
+        } finally {
+            lock.unlock();
         }
-        this.opcode = opcode;
-        this.data = data;
-        this.hasData = true;
-        notify();
     }
 
-    public synchronized void queue(T data) {
-        while (hasData) try {
-            wait();
-            notifyAll();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+    /**
+     * <p>Non-blocking insertion, applying the buffer's {@link OverflowPolicy} if there's no room.</p>
+     * @return {@code true} if the entry was queued, {@code false} if it was refused
+     */
+    public boolean offer(int opcode, T data) {
+        lock.lock();
+        try {
+            offered++;
+            if (count == items.length) {
+                switch (policy) {
+                    case DROP_OLDEST:
+                        evictOldest();
+                        dropped++;
+                        break;
+                    case REJECT:
+                        rejected++;
+                        return false;
+                    case BLOCK: {
+                        long nanos = offerTimeoutNanos;
+                        while (count == items.length) {
+                            if (nanos <= 0) {
+                                rejected++;
+                                return false;
+                            }
+                            try {
+                                nanos = notFull.awaitNanos(nanos);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                rejected++;
+                                return false;
+                            }
+                        }
+                        break;
+                    }
+                }
+            }
+            enqueue(opcode, data);
+            return true;
+        } finally {
+            lock.unlock();
         }
-        this.data = data;
-        this.hasData = true;
-        notify();
     }
 
-    public synchronized void queueOverride(int opcode) {
-        this.opcode = opcode;
-        if (!hasData) {
-            this.hasData = true;
-            notify();
+    public boolean offer(T data) {
+        return offer(0, data);
+    }
+
+    // Basic extraction functions (block until there's data)
+    public Pair<Integer, T> getData() {
+        lock.lock();
+        try {
+            awaitData();
+            int opcode = opcodes[head];
+            return new Pair<>(opcode, dequeue());
+        } finally {
+            lock.unlock();
         }
     }
 
-    public synchronized void queueOverride(int opcode, T data) {
-        this.opcode = opcode;
-        this.data = data;
-        if (!hasData) {
-            this.hasData = true;
-            notify();
+    public T getObject() {
+        lock.lock();
+        try {
+            awaitData();
+            return dequeue();
+        } finally {
+            lock.unlock();
         }
     }
 
-    public synchronized void queueOverride(T data) {
-        this.data = data;
-        if (!hasData) {
-            this.hasData = true;
-            notify();
+    /**
+     * <p>Moves up to {@code maxEntries} queued entries into {@code target} without blocking.</p>
+     * @return The amount of entries moved
+     */
+    public int drainTo(Collection<? super Pair<Integer, T>> target, int maxEntries) {
+        lock.lock();
+        try {
+            int moved = 0;
+            while (count != 0 && moved < maxEntries) {
+                int opcode = opcodes[head];
+                target.add(new Pair<>(opcode, dequeue()));
+                moved++;
+            }
+            return moved;
+        } finally {
+            lock.unlock();
         }
     }
 
-    // Basic extraction function
-    public synchronized Pair<Integer, T> getData() {
-        while (!hasData) try {
-            wait();
-            notifyAll();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+    public int drainTo(Collection<? super Pair<Integer, T>> target) {
+        return drainTo(target, Integer.MAX_VALUE);
+    }
+
+    // Metrics
+    public int depth() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
         }
-        hasData = false;
-        notify();
-        return new Pair<>(opcode, data);
     }
 
-    public synchronized T getObject() {
-        while (!hasData) try {
-            wait();
-            notifyAll();
+    public int capacity() {
+        return items.length;
+    }
+
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    public long getOfferedCount() {
+        lock.lock();
+        try {
+            return offered;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getTakenCount() {
+        lock.lock();
+        try {
+            return taken;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getDroppedCount() {
+        lock.lock();
+        try {
+            return dropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRejectedCount() {
+        lock.lock();
+        try {
+            return rejected;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxDepth() {
+        lock.lock();
+        try {
+            return maxDepth;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The average time entries spent queued before being taken, in microseconds
+     */
+    public long getAverageWaitMicros() {
+        lock.lock();
+        try {
+            return taken == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalWaitNanos / taken);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The longest time an entry spent queued before being taken, in microseconds
+     */
+    public long getMaxWaitMicros() {
+        lock.lock();
+        try {
+            return TimeUnit.NANOSECONDS.toMicros(maxWaitNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        lock.lock();
+        try {
+            return "Buffer[depth=" + count + "/" + items.length + ", maxDepth=" + maxDepth +
+                    ", offered=" + offered + ", taken=" + taken + ", dropped=" + dropped + ", rejected=" + rejected +
+                    ", avgWait=" + (taken == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalWaitNanos / taken)) + "us" +
+                    ", maxWait=" + TimeUnit.NANOSECONDS.toMicros(maxWaitNanos) + "us]";
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Ring handling (lock must be held)
+    private void awaitData() {
+        while (count == 0) try {
+            notEmpty.await();
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
-        hasData = false;
-        notify();
+    }
+
+    private void enqueue(int opcode, T data) {
+        opcodes[tail] = opcode;
+        items[tail] = data;
+        queuedAt[tail] = System.nanoTime();
+        tail = inc(tail);
+        count++;
+        if (count > maxDepth) maxDepth = count;
+        notEmpty.signal();
+    }
+
+    @SuppressWarnings("unchecked")
+    private T dequeue() {
+        T data = (T) items[head];
+        long waited = System.nanoTime() - queuedAt[head];
+        items[head] = null;
+        head = inc(head);
+        count--;
+        taken++;
+        totalWaitNanos += waited;
+        if (waited > maxWaitNanos) maxWaitNanos = waited;
+        notFull.signal();
         return data;
     }
+
+    private void evictOldest() {
+        items[head] = null;
+        head = inc(head);
+        count--;
+    }
+
+    private int inc(int i) {
+        return i + 1 == items.length ? 0 : i + 1;
+    }
+
+    private int dec(int i) {
+        return i == 0 ? items.length - 1 : i - 1;
+    }
 }
@@ -0,0 +1,273 @@
+package util;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Finds out the size of remote images without downloading them.</p>
+ * Only the first bytes of the image are read: the IHDR chunk of a PNG, the logical screen of a GIF, the first SOF
+ * segment of a JPEG or the VP8/VP8L/VP8X header of a WebP. Other formats fall back to decoding the whole image.
+ * Sizes are kept in an LRU cache for a while, so the same image is only looked up once.
+ */
+public class ImageProbe {
+
+    private static final String CMD_HEADER = "(IMAGES) ";
+    private static final int TIMEOUT_MILLIS = 5000;
+    // JPEG metadata (EXIF thumbnails mostly) can push the size segment this far in
+    private static final int MAX_HEADER_BYTES = 512 * 1024;
+
+    public static final class Dimensions {
+        private final int width;
+        private final int height;
+
+        public Dimensions(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        @Override
+        public String toString() {
+            return width + "x" + height;
+        }
+    }
+
+    private static final class Entry {
+        private final Dimensions dimensions;
+        private final long expiresAt;
+
+        private Entry(Dimensions dimensions, long expiresAt) {
+            this.dimensions = dimensions;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final long ttlNanos;
+    private final Map<String, Entry> cache;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param cacheSize Maximum amount of images remembered.
+     * @param ttl       How long a size is remembered for.
+     * @param unit      Unit of {@code ttl}.
+     */
+    public ImageProbe(int cacheSize, long ttl, TimeUnit unit) {
+        this.ttlNanos = unit.toNanos(ttl);
+        this.cache = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * @return The size of the image
+     * @throws IOException If the image can't be downloaded or isn't an image
+     */
+    public Dimensions probe(String url) throws IOException {
+        synchronized (this) {
+            Entry entry = cache.get(url);
+            if (entry != null && entry.expiresAt - System.nanoTime() > 0) {
+                hits++;
+                return entry.dimensions;
+            }
+            misses++;
+        }
+
+        Dimensions dimensions = fetch(url);
+        synchronized (this) {
+            cache.put(url, new Entry(dimensions, System.nanoTime() + ttlNanos));
+        }
+        return dimensions;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private static Dimensions fetch(String url) throws IOException {
+        URLConnection connection = new URL(url).openConnection();
+        connection.setConnectTimeout(TIMEOUT_MILLIS);
+        connection.setReadTimeout(TIMEOUT_MILLIS);
+        // Some hosts (reddit) refuse Java's default agent
+        connection.setRequestProperty("User-Agent", "BruhBot");
+        try (InputStream in = new BufferedInputStream(connection.getInputStream())) {
+            in.mark(MAX_HEADER_BYTES);
+            Dimensions dimensions = readDimensions(in);
+            if (dimensions != null) return dimensions;
+
+            System.out.println(CMD_HEADER + "Unknown header, decoding the whole image: " + url);
+            in.reset();
+            BufferedImage image = ImageIO.read(in);
+            if (image == null) throw new IOException("Not an image: " + url);
+            return new Dimensions(image.getWidth(), image.getHeight());
+        } finally {
+            // Drops the connection instead of draining the rest of the image
+            if (connection instanceof HttpURLConnection) ((HttpURLConnection) connection).disconnect();
+        }
+    }
+
+    /**
+     * @return The size found in the image header, or {@code null} if the format isn't recognized
+     */
+    public static Dimensions readDimensions(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new LimitedInputStream(stream, MAX_HEADER_BYTES));
+        byte[] magic = new byte[4];
+        try {
+            in.readFully(magic);
+            if ((magic[0] & 0xFF) == 0x89 && magic[1] == 'P' && magic[2] == 'N' && magic[3] == 'G') return readPng(in);
+            if (magic[0] == 'G' && magic[1] == 'I' && magic[2] == 'F' && magic[3] == '8') return readGif(in);
+            if ((magic[0] & 0xFF) == 0xFF && (magic[1] & 0xFF) == 0xD8) return readJpeg(in, magic[2] & 0xFF, magic[3] & 0xFF);
+            if (magic[0] == 'R' && magic[1] == 'I' && magic[2] == 'F' && magic[3] == 'F') return readWebp(in);
+        } catch (EOFException e) {
+            return null;
+        }
+        return null;
+    }
+
+    private static Dimensions readPng(DataInputStream in) throws IOException {
+        // Rest of the signature, IHDR length and type
+        skipFully(in, 4 + 4 + 4);
+        return new Dimensions(in.readInt(), in.readInt());
+    }
+
+    private static Dimensions readGif(DataInputStream in) throws IOException {
+        // "7a" or "9a"
+        skipFully(in, 2);
+        int width = in.readUnsignedByte() | in.readUnsignedByte() << 8;
+        int height = in.readUnsignedByte() | in.readUnsignedByte() << 8;
+        return new Dimensions(width, height);
+    }
+
+    private static Dimensions readJpeg(DataInputStream in, int first, int second) throws IOException {
+        // The two bytes after the SOI marker were already read, and start the first segment
+        if (first != 0xFF) return null;
+        int marker = second;
+        while (true) {
+            // Fill bytes
+            while (marker == 0xFF) marker = in.readUnsignedByte();
+            // Markers without a length
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD9)) {
+                if (marker == 0xD9) return null;
+            } else {
+                int length = in.readUnsignedShort();
+                boolean startOfFrame = marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+                if (startOfFrame) {
+                    skipFully(in, 1);
+                    int height = in.readUnsignedShort();
+                    int width = in.readUnsignedShort();
+                    return new Dimensions(width, height);
+                }
+                skipFully(in, length - 2);
+            }
+            if (in.readUnsignedByte() != 0xFF) return null;
+            marker = in.readUnsignedByte();
+        }
+    }
+
+    private static Dimensions readWebp(DataInputStream in) throws IOException {
+        byte[] fourCC = new byte[4];
+        // File size
+        skipFully(in, 4);
+        in.readFully(fourCC);
+        if (!new String(fourCC, "US-ASCII").equals("WEBP")) return null;
+        in.readFully(fourCC);
+        String chunk = new String(fourCC, "US-ASCII");
+        // Chunk size
+        skipFully(in, 4);
+        switch (chunk) {
+            case "VP8 ": {
+                // Frame tag and start code
+                skipFully(in, 3 + 3);
+                int width = (in.readUnsignedByte() | in.readUnsignedByte() << 8) & 0x3FFF;
+                int height = (in.readUnsignedByte() | in.readUnsignedByte() << 8) & 0x3FFF;
+                return new Dimensions(width, height);
+            }
+            case "VP8L": {
+                if (in.readUnsignedByte() != 0x2F) return null;
+                int bits = in.readUnsignedByte() | in.readUnsignedByte() << 8 | in.readUnsignedByte() << 16 | in.readUnsignedByte() << 24;
+                return new Dimensions((bits & 0x3FFF) + 1, ((bits >>> 14) & 0x3FFF) + 1);
+            }
+            case "VP8X": {
+                // Flags and reserved bytes
+                skipFully(in, 4);
+                int width = in.readUnsignedByte() | in.readUnsignedByte() << 8 | in.readUnsignedByte() << 16;
+                int height = in.readUnsignedByte() | in.readUnsignedByte() << 8 | in.readUnsignedByte() << 16;
+                return new Dimensions(width + 1, height + 1);
+            }
+            default:
+                return null;
+        }
+    }
+
+    private static void skipFully(DataInputStream in, int bytes) throws IOException {
+        while (bytes > 0) {
+            int skipped = in.skipBytes(bytes);
+            if (skipped == 0) {
+                in.readUnsignedByte();
+                skipped = 1;
+            }
+            bytes -= skipped;
+        }
+    }
+
+    /**
+     * <p>Stops reading after a fixed amount of bytes, so a header that never ends can't download a whole file.</p>
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private int remaining;
+
+        private LimitedInputStream(InputStream in, int limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) return -1;
+            int b = super.read();
+            if (b != -1) remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) return -1;
+            int n = super.read(b, off, Math.min(len, remaining));
+            if (n > 0) remaining -= n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= (int) skipped;
+            return skipped;
+        }
+
+        @Override
+        public void close() {
+            // The caller owns the stream
+        }
+    }
+}
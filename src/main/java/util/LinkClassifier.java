@@ -0,0 +1,133 @@
+package util;
+
+import java.util.*;
+
+/**
+ * <p>Finds the links in a text and tells what kind of media each one points to.</p>
+ * Links are found by {@link UrlScanner}, YouTube ones included even without a scheme. They are then classified by
+ * host (YouTube and Tenor are always videos) or by the extension of their path, looked up in a fixed table.
+ */
+public final class LinkClassifier {
+
+    public enum MediaType {
+        /** Can be embedded as an image. */
+        IMAGE,
+        /** Can't be embedded, has to be sent as a plain link for Discord to show it. */
+        VIDEO,
+        /** Not media, or nothing known about it. */
+        OTHER
+    }
+
+    private static final Map<String, MediaType> EXTENSIONS = new HashMap<>();
+    static {
+        for (String e : new String[]{"jpg", "jpeg", "png", "gif", "webp", "tiff", "svg", "apng"})
+            EXTENSIONS.put(e, MediaType.IMAGE);
+        for (String e : new String[]{"webm", "flv", "vob", "avi", "mov", "wmv", "amv", "mp4", "mpg", "mpeg", "gifv"})
+            EXTENSIONS.put(e, MediaType.VIDEO);
+    }
+
+    private LinkClassifier() {}
+
+    public static final class Link {
+        private final String url;
+        private final int start;
+        private final int end;
+        private final MediaType type;
+
+        private Link(String url, int start, int end, MediaType type) {
+            this.url = url;
+            this.start = start;
+            this.end = end;
+            this.type = type;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * @return Position of the link in the text it was found in
+         */
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
+        public MediaType getType() {
+            return type;
+        }
+
+        public boolean isMedia() {
+            return type != MediaType.OTHER;
+        }
+    }
+
+    /**
+     * @return Every link in the text, in order of appearance
+     */
+    public static List<Link> findLinks(CharSequence text) {
+        List<Link> links = null;
+        UrlScanner scanner = new UrlScanner(text);
+        while (scanner.find()) {
+            if (links == null) links = new ArrayList<>(2);
+            String url = scanner.url();
+            links.add(new Link(url, scanner.start(), scanner.end(), classify(url)));
+        }
+        return links == null ? Collections.emptyList() : links;
+    }
+
+    /**
+     * @return The first image or video link in the text, or {@code null} if there's none
+     */
+    public static Link findFirstMedia(CharSequence text) {
+        UrlScanner scanner = new UrlScanner(text);
+        while (scanner.find()) {
+            String url = scanner.url();
+            MediaType type = classify(url);
+            if (type != MediaType.OTHER) return new Link(url, scanner.start(), scanner.end(), type);
+        }
+        return null;
+    }
+
+    public static MediaType classify(String url) {
+        String host = hostOf(url);
+        if (host.endsWith("youtube.com") || host.equals("youtu.be")) return MediaType.VIDEO;
+        // TODO Tenor GIFs can't be decoded by ImageIO (the constructor returns null). Investigate
+        if (host.equals("tenor.com")) return MediaType.VIDEO;
+        String extension = extensionOf(url);
+        return extension == null ? MediaType.OTHER : EXTENSIONS.getOrDefault(extension, MediaType.OTHER);
+    }
+
+    /**
+     * @return The lowercase extension of the last path segment, ignoring the query and fragment, or {@code null}
+     */
+    public static String extensionOf(String url) {
+        int pathStart = url.indexOf("://");
+        pathStart = url.indexOf('/', pathStart == -1 ? 0 : pathStart + 3);
+        if (pathStart == -1) return null;
+        int dot = -1;
+        int end = url.length();
+        for (int i = pathStart; i != url.length(); i++) {
+            char c = url.charAt(i);
+            if (c == '?' || c == '#') {
+                end = i;
+                break;
+            }
+            if (c == '/') dot = -1;
+            else if (c == '.') dot = i;
+        }
+        return dot == -1 || dot + 1 == end ? null : url.substring(dot + 1, end).toLowerCase(Locale.ROOT);
+    }
+
+    private static String hostOf(String url) {
+        int start = url.indexOf("://");
+        start = start == -1 ? 0 : start + 3;
+        int end = start;
+        while (end != url.length() && url.charAt(end) != '/' && url.charAt(end) != '?' && url.charAt(end) != '#' && url.charAt(end) != ':') end++;
+        String host = url.substring(start, end).toLowerCase(Locale.ROOT);
+        return host.startsWith("www.") ? host.substring(4) : host;
+    }
+}
@@ -0,0 +1,146 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * <p>Set of primitive {@code long}s, without boxing.</p>
+ * Open addressing with linear probing over a power of two table, kept at most half full. Removals shift the following
+ * entries back instead of leaving tombstones, so lookups never get slower over time. Not thread safe.
+ */
+public class LongHashSet {
+
+    private static final int MIN_CAPACITY = 16;
+    // Marks an empty slot. Zero itself is tracked apart
+    private static final long EMPTY = 0L;
+
+    private long[] table;
+    private int size;
+    private boolean hasZero;
+
+    public LongHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expected Amount of elements the set can hold before growing.
+     */
+    public LongHashSet(int expected) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expected * 2) capacity <<= 1;
+        this.table = new long[capacity];
+    }
+
+    public boolean contains(long value) {
+        if (value == EMPTY) return hasZero;
+        int mask = table.length - 1;
+        for (int i = mix(value) & mask; ; i = (i + 1) & mask) {
+            long current = table[i];
+            if (current == value) return true;
+            if (current == EMPTY) return false;
+        }
+    }
+
+    /**
+     * @return {@code true} if the value wasn't previously in
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (hasZero) return false;
+            hasZero = true;
+            size++;
+            return true;
+        }
+        int mask = table.length - 1;
+        int i = mix(value) & mask;
+        for (; table[i] != EMPTY; i = (i + 1) & mask) {
+            if (table[i] == value) return false;
+        }
+        table[i] = value;
+        if (++size * 2 > table.length) resize(table.length * 2);
+        return true;
+    }
+
+    /**
+     * @return {@code true} if the value was in
+     */
+    public boolean remove(long value) {
+        if (value == EMPTY) {
+            if (!hasZero) return false;
+            hasZero = false;
+            size--;
+            return true;
+        }
+        int mask = table.length - 1;
+        int i = mix(value) & mask;
+        while (table[i] != value) {
+            if (table[i] == EMPTY) return false;
+            i = (i + 1) & mask;
+        }
+        // Moves back every following entry that would become unreachable through the freed slot
+        int free = i;
+        for (int j = (i + 1) & mask; table[j] != EMPTY; j = (j + 1) & mask) {
+            int home = mix(table[j]) & mask;
+            boolean reachable = free <= j ? (home > free && home <= j) : (home > free || home <= j);
+            if (!reachable) {
+                table[free] = table[j];
+                free = j;
+            }
+        }
+        table[free] = EMPTY;
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(table, EMPTY);
+        hasZero = false;
+        size = 0;
+    }
+
+    public LongHashSet copy() {
+        LongHashSet copy = new LongHashSet();
+        copy.table = table.clone();
+        copy.size = size;
+        copy.hasZero = hasZero;
+        return copy;
+    }
+
+    /**
+     * @return Every value, in no particular order
+     */
+    public long[] toArray() {
+        long[] values = new long[size];
+        int n = 0;
+        if (hasZero) values[n++] = 0;
+        for (long value : table) if (value != EMPTY) values[n++] = value;
+        return values;
+    }
+
+    private void resize(int capacity) {
+        long[] old = table;
+        table = new long[capacity];
+        int mask = capacity - 1;
+        for (long value : old) {
+            if (value == EMPTY) continue;
+            int i = mix(value) & mask;
+            while (table[i] != EMPTY) i = (i + 1) & mask;
+            table[i] = value;
+        }
+    }
+
+    /**
+     * <p>Spreads the bits of the value, since Discord IDs share most of their high bits and end in a counter.</p>
+     */
+    private static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
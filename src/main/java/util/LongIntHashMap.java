@@ -0,0 +1,188 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * <p>Map from primitive {@code long} keys to primitive {@code int} values, without boxing either.</p>
+ * Same layout as {@link LongHashSet}: open addressing with linear probing over a power of two table kept at most half
+ * full, and backward shifting on removal. Not thread safe.
+ */
+public class LongIntHashMap {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final long EMPTY = 0L;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private boolean hasZero;
+    private int zeroValue;
+
+    public LongIntHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expected Amount of entries the map can hold before growing.
+     */
+    public LongIntHashMap(int expected) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expected * 2) capacity <<= 1;
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+    }
+
+    /**
+     * @return The value of the key, or {@code missing} if there's none
+     */
+    public int get(long key, int missing) {
+        if (key == EMPTY) return hasZero ? zeroValue : missing;
+        int i = indexOf(key);
+        return i == -1 ? missing : values[i];
+    }
+
+    public boolean containsKey(long key) {
+        if (key == EMPTY) return hasZero;
+        return indexOf(key) != -1;
+    }
+
+    /**
+     * @return {@code true} if the key wasn't previously in
+     */
+    public boolean put(long key, int value) {
+        if (key == EMPTY) {
+            boolean added = !hasZero;
+            if (added) size++;
+            hasZero = true;
+            zeroValue = value;
+            return added;
+        }
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        for (; keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return false;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length) resize(keys.length * 2);
+        return true;
+    }
+
+    /**
+     * <p>Adds {@code delta} to the value of the key, starting from 0 if it isn't in. The key is removed if its value
+     * ends up being 0, which makes this map usable as a reference counter.</p>
+     *
+     * @return The new value
+     */
+    public int addTo(long key, int delta) {
+        int value = get(key, 0) + delta;
+        if (value == 0) remove(key);
+        else put(key, value);
+        return value;
+    }
+
+    /**
+     * @return {@code true} if the key was in
+     */
+    public boolean remove(long key) {
+        if (key == EMPTY) {
+            if (!hasZero) return false;
+            hasZero = false;
+            zeroValue = 0;
+            size--;
+            return true;
+        }
+        int i = indexOf(key);
+        if (i == -1) return false;
+        int mask = keys.length - 1;
+        int free = i;
+        for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = mix(keys[j]) & mask;
+            boolean reachable = free <= j ? (home > free && home <= j) : (home > free || home <= j);
+            if (!reachable) {
+                keys[free] = keys[j];
+                values[free] = values[j];
+                free = j;
+            }
+        }
+        keys[free] = EMPTY;
+        values[free] = 0;
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, 0);
+        hasZero = false;
+        zeroValue = 0;
+        size = 0;
+    }
+
+    public LongIntHashMap copy() {
+        LongIntHashMap copy = new LongIntHashMap();
+        copy.keys = keys.clone();
+        copy.values = values.clone();
+        copy.size = size;
+        copy.hasZero = hasZero;
+        copy.zeroValue = zeroValue;
+        return copy;
+    }
+
+    /**
+     * @return Every key, in no particular order
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int n = 0;
+        if (hasZero) result[n++] = 0;
+        for (long key : keys) if (key != EMPTY) result[n++] = key;
+        return result;
+    }
+
+    /**
+     * @return Rough amount of bytes taken by the tables
+     */
+    public long tableBytes() {
+        return (long) keys.length * (Long.BYTES + Integer.BYTES);
+    }
+
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            if (keys[i] == key) return i;
+            if (keys[i] == EMPTY) return -1;
+        }
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j != oldKeys.length; j++) {
+            if (oldKeys[j] == EMPTY) continue;
+            int i = mix(oldKeys[j]) & mask;
+            while (keys[i] != EMPTY) i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            values[i] = oldValues[j];
+        }
+    }
+
+    private static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,186 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * <p>Map from primitive {@code long} keys to objects, without boxing the keys.</p>
+ * Same layout as {@link LongHashSet}: open addressing with linear probing over a power of two table kept at most half
+ * full, and backward shifting on removal. Not thread safe.
+ */
+public class LongObjectHashMap<V> {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final long EMPTY = 0L;
+
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    private boolean hasZero;
+    private V zeroValue;
+
+    public LongObjectHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expected Amount of entries the map can hold before growing.
+     */
+    public LongObjectHashMap(int expected) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expected * 2) capacity <<= 1;
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+    }
+
+    /**
+     * @return The value of the key, or {@code null} if there's none
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == EMPTY) return zeroValue;
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            long current = keys[i];
+            if (current == key) return (V) values[i];
+            if (current == EMPTY) return null;
+        }
+    }
+
+    public boolean containsKey(long key) {
+        if (key == EMPTY) return hasZero;
+        return indexOf(key) != -1;
+    }
+
+    /**
+     * @return The previous value of the key, or {@code null} if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (key == EMPTY) {
+            V previous = zeroValue;
+            if (!hasZero) size++;
+            hasZero = true;
+            zeroValue = value;
+            return previous;
+        }
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        for (; keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                V previous = (V) values[i];
+                values[i] = value;
+                return previous;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length) resize(keys.length * 2);
+        return null;
+    }
+
+    /**
+     * @return The removed value, or {@code null} if the key wasn't in
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        if (key == EMPTY) {
+            if (!hasZero) return null;
+            V previous = zeroValue;
+            hasZero = false;
+            zeroValue = null;
+            size--;
+            return previous;
+        }
+        int i = indexOf(key);
+        if (i == -1) return null;
+        V previous = (V) values[i];
+        int mask = keys.length - 1;
+        int free = i;
+        for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = mix(keys[j]) & mask;
+            boolean reachable = free <= j ? (home > free && home <= j) : (home > free || home <= j);
+            if (!reachable) {
+                keys[free] = keys[j];
+                values[free] = values[j];
+                free = j;
+            }
+        }
+        keys[free] = EMPTY;
+        values[free] = null;
+        size--;
+        return previous;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, null);
+        hasZero = false;
+        zeroValue = null;
+        size = 0;
+    }
+
+    /**
+     * @return Every key, in no particular order
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int n = 0;
+        if (hasZero) result[n++] = 0;
+        for (long key : keys) if (key != EMPTY) result[n++] = key;
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> action) {
+        if (hasZero) action.accept(0, zeroValue);
+        for (int i = 0; i != keys.length; i++) if (keys[i] != EMPTY) action.accept(keys[i], (V) values[i]);
+    }
+
+    /**
+     * @return Rough amount of bytes taken by the tables, not counting the values themselves
+     */
+    public long tableBytes() {
+        return (long) keys.length * (Long.BYTES + 4);
+    }
+
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            if (keys[i] == key) return i;
+            if (keys[i] == EMPTY) return -1;
+        }
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j != oldKeys.length; j++) {
+            if (oldKeys[j] == EMPTY) continue;
+            int i = mix(oldKeys[j]) & mask;
+            while (keys[i] != EMPTY) i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            values[i] = oldValues[j];
+        }
+    }
+
+    private static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
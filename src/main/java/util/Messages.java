@@ -0,0 +1,41 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Helpers to fit text into Discord messages.</p>
+ */
+public class Messages {
+
+    /**
+     * Longest message Discord accepts, in characters.
+     */
+    public static final int MAX_LENGTH = 2000;
+
+    private Messages() {}
+
+    /**
+     * <p>Joins the lines by newlines into as few messages as possible, none over {@link #MAX_LENGTH}.</p>
+     * A line is only split across messages if it doesn't fit in a message by itself.
+     */
+    public static List<String> splitMessages(List<String> lines) {
+        List<String> messages = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : lines) {
+            if (current.length() != 0 && current.length() + 1 + line.length() > MAX_LENGTH) {
+                messages.add(current.toString());
+                current.setLength(0);
+            }
+            if (current.length() != 0) current.append('\n');
+            current.append(line);
+            // A single line that doesn't fit gets cut into pieces
+            while (current.length() > MAX_LENGTH) {
+                messages.add(current.substring(0, MAX_LENGTH));
+                current.delete(0, MAX_LENGTH);
+            }
+        }
+        if (current.length() != 0) messages.add(current.toString());
+        return messages;
+    }
+}
@@ -1,7 +1,12 @@
 package util;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
-import java.util.Date;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 public class Quote {
 
@@ -10,13 +15,30 @@ public class Quote {
     private final String nickname;
     private final OffsetDateTime time;
     private final String id;
+    // Deflated and Base64 encoded, null if the content wasn't cached
+    private final String compressedContent;
 
     public Quote(String channel, String attachment, String nickname, OffsetDateTime time, String id) {
+        this(channel, attachment, nickname, time, id, null);
+    }
+
+    /**
+     * @param compressedContent Content of the message as given by {@link #compress(String)}, or {@code null}.
+     */
+    public Quote(String channel, String attachment, String nickname, OffsetDateTime time, String id, String compressedContent) {
         this.channel = channel;
         this.attachment = attachment;
         this.nickname = nickname;
         this.time = time;
         this.id = id;
+        this.compressedContent = compressedContent;
+    }
+
+    /**
+     * @return A copy of this quote with the content of its message cached
+     */
+    public Quote withContent(String content) {
+        return new Quote(channel, attachment, nickname, time, id, compress(content));
     }
 
     public String getNickname() {
@@ -38,4 +60,56 @@ public class Quote {
     public String getId() {
         return id;
     }
+
+    public boolean hasContent() {
+        return compressedContent != null;
+    }
+
+    /**
+     * @return The content of the quoted message, or {@code null} if it wasn't cached
+     */
+    public String getContent() {
+        return compressedContent == null ? null : decompress(compressedContent);
+    }
+
+    /**
+     * @return The content as stored, or {@code null} if it wasn't cached
+     */
+    public String getCompressedContent() {
+        return compressedContent;
+    }
+
+    public static String compress(String content) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(content.getBytes(StandardCharsets.UTF_8));
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(content.length() / 2 + 16);
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) out.write(buffer, 0, deflater.deflate(buffer));
+            return Base64.getEncoder().encodeToString(out.toByteArray());
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static String decompress(String compressed) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(Base64.getDecoder().decode(compressed));
+            ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length() * 2);
+            byte[] buffer = new byte[1024];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && !inflater.finished() && (inflater.needsInput() || inflater.needsDictionary()))
+                    throw new IllegalArgumentException("Truncated quote content");
+                out.write(buffer, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupted quote content", e);
+        } finally {
+            inflater.end();
+        }
+    }
 }
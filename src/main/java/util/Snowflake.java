@@ -0,0 +1,34 @@
+package util;
+
+/**
+ * <p>Conversions between Discord IDs as stored on disk (decimal strings) and as kept in memory ({@code long}s).</p>
+ */
+public final class Snowflake {
+
+    /**
+     * Returned for strings that aren't an ID. Discord never hands out 0.
+     */
+    public static final long INVALID = 0L;
+
+    private Snowflake() {}
+
+    /**
+     * @return The ID, or {@link #INVALID} if the string isn't a positive decimal number that fits in a {@code long}
+     */
+    public static long parse(CharSequence id) {
+        if (id == null || id.length() == 0 || id.length() > 19) return INVALID;
+        long value = 0;
+        for (int i = 0; i != id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') return INVALID;
+            value = value * 10 + (c - '0');
+            // Only possible with 19 digits
+            if (value < 0) return INVALID;
+        }
+        return value;
+    }
+
+    public static String toString(long id) {
+        return Long.toString(id);
+    }
+}
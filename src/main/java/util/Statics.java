@@ -6,5 +6,13 @@ public class Statics {
      */
     public static final String BOT_OWNER = "???";
     public static final String ANONFILES_API_KEY = "???";
+    /**
+     * Endpoint the backup command uploads files to.
+     */
+    public static final String ANONFILES_UPLOAD_URL = "https://api.anonfiles.com/upload";
+    /**
+     * Largest file the backup command accepts, in bytes.
+     */
+    public static final long MAX_BACKUP_BYTES = 512L * 1024 * 1024;
     public static final String CLOWN_ROLE_ID = "???";
 }
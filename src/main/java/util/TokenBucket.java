@@ -0,0 +1,69 @@
+package util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Rate limiter allowing bursts of up to {@code capacity} permits, refilled at a steady rate.</p>
+ */
+public class TokenBucket {
+
+    private final long capacity;
+    private final long nanosPerToken;
+    private long tokens;
+    private long lastRefill;
+
+    /**
+     * @param capacity     Maximum burst size. The bucket starts full.
+     * @param refillTokens Permits added every {@code refillPeriod}.
+     * @param refillPeriod Period over which {@code refillTokens} permits are added.
+     * @param unit         Unit of {@code refillPeriod}.
+     */
+    public TokenBucket(long capacity, long refillTokens, long refillPeriod, TimeUnit unit) {
+        this.capacity = capacity;
+        this.nanosPerToken = Math.max(1, unit.toNanos(refillPeriod) / refillTokens);
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * @return {@code true} if a permit was taken, {@code false} if there are none right now
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens == 0) return false;
+        tokens--;
+        return true;
+    }
+
+    /**
+     * <p>Takes a permit, waiting for one if there are none.</p>
+     */
+    public void acquire() throws InterruptedException {
+        while (true) {
+            long wait;
+            synchronized (this) {
+                refill();
+                if (tokens != 0) {
+                    tokens--;
+                    return;
+                }
+                wait = nanosPerToken - (System.nanoTime() - lastRefill);
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.max(1, wait));
+        }
+    }
+
+    public synchronized long available() {
+        refill();
+        return tokens;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        long earned = (now - lastRefill) / nanosPerToken;
+        if (earned == 0) return;
+        tokens = Math.min(capacity, tokens + earned);
+        // Keeps the remainder, so partial progress towards the next permit isn't lost
+        lastRefill = tokens == capacity ? now : lastRefill + earned * nanosPerToken;
+    }
+}
@@ -0,0 +1,114 @@
+package util;
+
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * <p>Precompiled set of message triggers.</p>
+ * A trigger matches a message when the whole message matches it as a {@code (?s)} regex. Triggers that are plain
+ * text, optionally surrounded by {@code .*}, are really exact/prefix/suffix/substring checks, so they're all fed to a
+ * single {@link AhoCorasick} automaton and resolved in one pass over the message. Everything else is compiled once
+ * and matched as a regular {@link Pattern}.
+ */
+public class TriggerIndex {
+
+    private static final String ANY = ".*";
+    private static final String METACHARACTERS = "\\^$.|?*+()[]{}";
+
+    private enum Anchor { EXACT, PREFIX, SUFFIX, CONTAINS }
+
+    public static final TriggerIndex EMPTY = new TriggerIndex(Collections.emptyList());
+
+    // Triggers in the order they were given. Literal ones have a null pattern
+    private final String[] triggers;
+    private final Pattern[] patterns;
+    // Literal triggers: automaton pattern index -> trigger index and anchoring
+    private final int[] literalTrigger;
+    private final Anchor[] literalAnchor;
+    private final AhoCorasick automaton;
+
+    public TriggerIndex(Collection<String> triggers) {
+        List<String> accepted = new ArrayList<>(triggers.size());
+        List<Pattern> compiled = new ArrayList<>(triggers.size());
+        List<String> literals = new ArrayList<>();
+        List<Integer> literalTriggers = new ArrayList<>();
+        List<Anchor> anchors = new ArrayList<>();
+
+        for (String trigger : triggers) {
+            boolean leading = trigger.startsWith(ANY);
+            boolean trailing = trigger.length() >= (leading ? 4 : 2) && trigger.endsWith(ANY);
+            String body = trigger.substring(leading ? 2 : 0, trigger.length() - (trailing ? 2 : 0));
+            if (!body.isEmpty() && isLiteral(body)) {
+                literals.add(body);
+                literalTriggers.add(accepted.size());
+                anchors.add(leading ? (trailing ? Anchor.CONTAINS : Anchor.SUFFIX) : (trailing ? Anchor.PREFIX : Anchor.EXACT));
+                compiled.add(null);
+            } else try {
+                compiled.add(Pattern.compile(trigger, Pattern.DOTALL));
+            } catch (PatternSyntaxException e) {
+                System.err.println("WARNING: Invalid trigger \"" + trigger + "\" will never match. Reason: " + e.getDescription());
+                continue;
+            }
+            accepted.add(trigger);
+        }
+
+        this.triggers = accepted.toArray(new String[0]);
+        this.patterns = compiled.toArray(new Pattern[0]);
+        this.literalTrigger = new int[literalTriggers.size()];
+        for (int i = 0; i != literalTrigger.length; i++) literalTrigger[i] = literalTriggers.get(i);
+        this.literalAnchor = anchors.toArray(new Anchor[0]);
+        this.automaton = new AhoCorasick(literals);
+    }
+
+    public int size() {
+        return triggers.length;
+    }
+
+    public int literalCount() {
+        return literalTrigger.length;
+    }
+
+    /**
+     * @return The first trigger (in the order they were given) matching {@code content}, or {@code null} if none does
+     */
+    public String firstMatch(String content) {
+        boolean[] literalHits = scanLiterals(content);
+        for (int i = 0; i != triggers.length; i++)
+            if (patterns[i] == null ? literalHits[i] : patterns[i].matcher(content).matches()) return triggers[i];
+        return null;
+    }
+
+    /**
+     * @return Every trigger matching {@code content}, in the order they were given
+     */
+    public List<String> allMatches(String content) {
+        boolean[] literalHits = scanLiterals(content);
+        List<String> matches = new ArrayList<>(2);
+        for (int i = 0; i != triggers.length; i++)
+            if (patterns[i] == null ? literalHits[i] : patterns[i].matcher(content).matches()) matches.add(triggers[i]);
+        return matches;
+    }
+
+    private boolean[] scanLiterals(String content) {
+        boolean[] hits = new boolean[triggers.length];
+        if (literalTrigger.length == 0) return hits;
+        int length = content.length();
+        automaton.scan(content, (p, start, end) -> {
+            boolean anchored;
+            switch (literalAnchor[p]) {
+                case EXACT: anchored = start == 0 && end == length; break;
+                case PREFIX: anchored = start == 0; break;
+                case SUFFIX: anchored = end == length; break;
+                default: anchored = true;
+            }
+            if (anchored) hits[literalTrigger[p]] = true;
+        });
+        return hits;
+    }
+
+    private static boolean isLiteral(String s) {
+        for (int i = 0; i != s.length(); i++) if (METACHARACTERS.indexOf(s.charAt(i)) >= 0) return false;
+        return true;
+    }
+}
@@ -0,0 +1,125 @@
+package util;
+
+/**
+ * <p>Finds links in a text in a single pass, without regular expressions or lowercased copies.</p>
+ * A link starts with {@code http://} or {@code https://} anywhere in the text, or with {@code www.}, {@code youtube.com/}
+ * or {@code youtu.be/} at the start of a word, in any case. Its host has to contain a dot, and the link runs until the
+ * next whitespace (or the closing {@code >} of a link wrapped in angle brackets). Used like a {@code Matcher}:
+ * <pre>
+ * UrlScanner scanner = new UrlScanner(text);
+ * while (scanner.find()) handle(scanner.url());
+ * </pre>
+ */
+public final class UrlScanner {
+
+    // Prefixes accepted without a scheme, only at the start of a word
+    private static final String[] BARE_PREFIXES = {"www.", "youtube.com/", "youtu.be/"};
+
+    private final CharSequence text;
+    private int position;
+    private int start = -1;
+    private int end = -1;
+
+    public UrlScanner(CharSequence text) {
+        this.text = text;
+    }
+
+    /**
+     * @return {@code true} if the text contains at least one link
+     */
+    public static boolean containsUrl(CharSequence text) {
+        return new UrlScanner(text).find();
+    }
+
+    /**
+     * <p>Moves to the next link in the text.</p>
+     *
+     * @return {@code false} if there are no more links
+     */
+    public boolean find() {
+        int length = text.length();
+        for (int i = position; i < length; i++) {
+            char c = text.charAt(i);
+            int hostStart = -1;
+            if (c == 'h' || c == 'H') hostStart = afterScheme(i);
+            if (hostStart == -1 && isWordStart(i) && (c == 'w' || c == 'W' || c == 'y' || c == 'Y')) {
+                for (String prefix : BARE_PREFIXES) {
+                    if (regionMatches(i, prefix)) {
+                        hostStart = i;
+                        break;
+                    }
+                }
+            }
+            if (hostStart == -1) continue;
+
+            int hostEnd = hostEnd(hostStart);
+            if (!isValidHost(hostStart, hostEnd)) continue;
+            int linkEnd = hostEnd;
+            boolean bracketed = i > 0 && text.charAt(i - 1) == '<';
+            while (linkEnd < length && !Character.isWhitespace(text.charAt(linkEnd)) && !(bracketed && text.charAt(linkEnd) == '>')) linkEnd++;
+
+            start = i;
+            end = linkEnd;
+            position = linkEnd;
+            return true;
+        }
+        start = end = -1;
+        position = length;
+        return false;
+    }
+
+    public int start() {
+        return start;
+    }
+
+    public int end() {
+        return end;
+    }
+
+    /**
+     * @return The link found by the last call to {@link #find()}
+     */
+    public String url() {
+        return text.subSequence(start, end).toString();
+    }
+
+    /**
+     * @return Where the host starts if there's an HTTP(S) scheme at {@code i}, {@code -1} otherwise
+     */
+    private int afterScheme(int i) {
+        if (!regionMatches(i, "http")) return -1;
+        int j = i + 4;
+        if (j < text.length() && (text.charAt(j) == 's' || text.charAt(j) == 'S')) j++;
+        return regionMatches(j, "://") ? j + 3 : -1;
+    }
+
+    private int hostEnd(int i) {
+        while (i < text.length() && isHostChar(text.charAt(i))) i++;
+        return i;
+    }
+
+    /**
+     * @return {@code true} if the host has a dot with something on both sides of it
+     */
+    private boolean isValidHost(int start, int end) {
+        for (int i = start + 1; i < end - 1; i++) if (text.charAt(i) == '.') return true;
+        return false;
+    }
+
+    private boolean isWordStart(int i) {
+        return i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1));
+    }
+
+    private boolean regionMatches(int i, String lowercase) {
+        if (i + lowercase.length() > text.length()) return false;
+        for (int k = 0; k < lowercase.length(); k++) {
+            if (Character.toLowerCase(text.charAt(i + k)) != lowercase.charAt(k)) return false;
+        }
+        return true;
+    }
+
+    private static boolean isHostChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '.' || c == '-'
+                || c == '_' || c == '@' || c == ':' || c == '%' || c == '~' || c == '+' || c == '=';
+    }
+}
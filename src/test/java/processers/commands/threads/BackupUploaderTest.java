@@ -0,0 +1,164 @@
+package processers.commands.threads;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import util.Statics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * <p>Runs {@link BackupUploader} against a local HTTP stand-in for both the source of the file and the file host.</p>
+ */
+public class BackupUploaderTest {
+
+    private static final String TOKEN = "test-token";
+    private static final String FILE_NAME = "backup.bin";
+
+    private HttpServer server;
+    private String baseUrl;
+    private final byte[] payload = new byte[300_000];
+    // Last upload received by the stand-in host
+    private final AtomicReference<String> uploadContentType = new AtomicReference<>();
+    private final AtomicReference<Long> uploadDeclaredLength = new AtomicReference<>();
+    private final AtomicReference<byte[]> uploadBody = new AtomicReference<>();
+
+    @Before
+    public void startServer() throws IOException {
+        new Random(42).nextBytes(payload);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/file", exchange -> {
+            exchange.sendResponseHeaders(200, payload.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(payload);
+            }
+        });
+        // Declares a length over the production cap
+        server.createContext("/huge", exchange -> {
+            exchange.sendResponseHeaders(200, Statics.MAX_BACKUP_BYTES + 1);
+            writeQuietly(exchange, new byte[64 * 1024]);
+        });
+        // Doesn't declare a length, so the cap has to be enforced while streaming
+        server.createContext("/chunked", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            writeQuietly(exchange, payload);
+        });
+        server.createContext("/upload", exchange -> {
+            uploadContentType.set(exchange.getRequestHeaders().getFirst("Content-Type"));
+            String length = exchange.getRequestHeaders().getFirst("Content-Length");
+            uploadDeclaredLength.set(length == null ? null : Long.parseLong(length));
+            uploadBody.set(readAll(exchange.getRequestBody()));
+            byte[] answer = "{\"status\":true}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, answer.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(answer);
+            }
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void checksumMatchesTheDownloadedFile() throws Exception {
+        BackupUploader.Result result = new BackupUploader(baseUrl + "/upload", TOKEN, Statics.MAX_BACKUP_BYTES)
+                .backup(baseUrl + "/file", FILE_NAME);
+
+        assertEquals(payload.length, result.getSize());
+        assertEquals(toHex(MessageDigest.getInstance("SHA-256").digest(payload)), result.getSha256());
+        assertEquals(Boolean.TRUE, result.getResponse().get("status"));
+    }
+
+    @Test
+    public void multipartBodyIsFramedWithItsDeclaredLength() throws Exception {
+        new BackupUploader(baseUrl + "/upload", TOKEN, Statics.MAX_BACKUP_BYTES).backup(baseUrl + "/file", FILE_NAME);
+
+        String contentType = uploadContentType.get();
+        assertTrue("Not a multipart upload: " + contentType, contentType.startsWith("multipart/form-data; boundary="));
+        String boundary = contentType.substring(contentType.indexOf("boundary=") + "boundary=".length());
+        byte[] body = uploadBody.get();
+        assertEquals("Content-Length", Long.valueOf(body.length), uploadDeclaredLength.get());
+
+        String head = "--" + boundary + "\r\n" +
+                "Content-Disposition: form-data; name=\"token\"\r\n\r\n" +
+                TOKEN + "\r\n" +
+                "--" + boundary + "\r\n" +
+                "Content-Disposition: form-data; name=\"file\"; filename=\"" + FILE_NAME + "\"\r\n" +
+                "Content-Type: application/octet-stream\r\n\r\n";
+        String tail = "\r\n--" + boundary + "--\r\n";
+        byte[] headBytes = head.getBytes(StandardCharsets.UTF_8);
+        byte[] tailBytes = tail.getBytes(StandardCharsets.UTF_8);
+        assertEquals("Body length", headBytes.length + payload.length + tailBytes.length, body.length);
+        assertArrayEquals(headBytes, Arrays.copyOfRange(body, 0, headBytes.length));
+        assertArrayEquals(payload, Arrays.copyOfRange(body, headBytes.length, headBytes.length + payload.length));
+        assertArrayEquals(tailBytes, Arrays.copyOfRange(body, body.length - tailBytes.length, body.length));
+    }
+
+    @Test
+    public void declaredLengthOverTheCapIsRejected() throws Exception {
+        try {
+            new BackupUploader(baseUrl + "/upload", TOKEN, Statics.MAX_BACKUP_BYTES).backup(baseUrl + "/huge", FILE_NAME);
+            fail("A file over MAX_BACKUP_BYTES was accepted");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("File too large"));
+        }
+        assertEquals("Nothing should have been uploaded", null, uploadBody.get());
+    }
+
+    @Test
+    public void streamOverTheCapIsRejected() throws Exception {
+        try {
+            new BackupUploader(baseUrl + "/upload", TOKEN, payload.length - 1).backup(baseUrl + "/chunked", FILE_NAME);
+            fail("A stream over the cap was accepted");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("File too large"));
+        }
+        assertEquals("Nothing should have been uploaded", null, uploadBody.get());
+    }
+
+    @Test
+    public void streamAtTheCapIsAccepted() throws Exception {
+        BackupUploader.Result result = new BackupUploader(baseUrl + "/upload", TOKEN, payload.length)
+                .backup(baseUrl + "/chunked", FILE_NAME);
+
+        assertEquals(payload.length, result.getSize());
+    }
+
+    private static void writeQuietly(HttpExchange exchange, byte[] data) {
+        // The client hangs up once it sees the file is too large
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(data);
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int read; (read = in.read(buffer)) != -1; ) out.write(buffer, 0, read);
+        return out.toByteArray();
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+}